@@ -0,0 +1,26 @@
+package com.tech.BookStore.auth;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+
+/**
+ * Draws activation codes: eight characters from an alphabet without the look-alikes 0/O and 1/I,
+ * so 32^8 = 2^40 codes. That keeps a clash with the tokens retained for the purge window rare
+ * enough that codes can stay unique across every retained token, used and expired ones included.
+ */
+@Component
+public class ActivationCodeGenerator {
+
+    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+    private static final int LENGTH = 8;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    public String next() {
+        StringBuilder code = new StringBuilder(LENGTH);
+        for (int i = 0; i < LENGTH; i++) {
+            code.append(ALPHABET.charAt(SECURE_RANDOM.nextInt(ALPHABET.length())));
+        }
+        return code.toString();
+    }
+}
@@ -1,14 +1,17 @@
 package com.tech.BookStore.auth;
 
+import com.tech.BookStore.exception.ActivationTokenExpiredException;
+import com.tech.BookStore.exception.ConflictException;
+import com.tech.BookStore.exception.ServiceOverloadedException;
 import com.tech.BookStore.role.RoleRepo;
 import com.tech.BookStore.security.JwtService;
 import com.tech.BookStore.token.Token;
 import com.tech.BookStore.token.TokenRepo;
 import com.tech.BookStore.user.User;
 import com.tech.BookStore.user.UserRepo;
-import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.parameters.P;
@@ -16,8 +19,9 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -26,20 +30,43 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AuthenticationService {
 
+    private static final int MAX_CODE_ATTEMPTS = 10;
+    private static final int MAX_REGISTRATION_ATTEMPTS = 3;
+
     private final PasswordEncoder passwordEncoder;
     private final RoleRepo repo;
     private final UserRepo userRepo;
     private final TokenRepo tokenRepo;
+    private final ActivationCodeGenerator activationCodeGenerator;
     private final EmailService emailService;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${application.mailing.frontend.activation-url}")
     private String activationUrl;
 
 
 
+    // the hash is computed before the transaction opens, so a sign-up waiting for the hashing pool holds no connection
     public void register(RegistrationRequest request)
+    {
+        String password = passwordEncoder.encode(request.getPassword());
+        // a concurrent sign-up can draw the same code between our check and our insert; the
+        // unique index on the code rejects one of them, which simply tries again with a new code
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> createUser(request, password));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_REGISTRATION_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void createUser(RegistrationRequest request, String password)
     {
         var userRole = repo.findByName("USER")
                 .orElseThrow(()-> new IllegalStateException("Role user is not initialized"));
@@ -47,15 +74,17 @@ public class AuthenticationService {
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(password)
                 .accountLocked(false)
                 .enabled(false)
                 .roles(List.of(userRole))
                 .build();
         userRepo.save(user);
+        sendValidationEmail(user);
     }
 
-    public void sendValidationEmail(User user) throws MessagingException {
+    // the token and its email are written in the caller's transaction, so neither exists without the other
+    public void sendValidationEmail(User user) {
         var newToken = generateAndSaveActivationToken(user);
 
         emailService.sendEmail(
@@ -71,7 +100,7 @@ public class AuthenticationService {
     }
     private String generateAndSaveActivationToken(User user)
     {
-        String generateToken = generateActivationCode(6);
+        String generateToken = generateActivationCode();
         var token  = Token.builder()
                 .token(generateToken)
                 .createdAt(LocalDateTime.now())
@@ -83,15 +112,16 @@ public class AuthenticationService {
 
     }
 
-    private String generateActivationCode(int length) {
-        String characters = "0123456789";
-        StringBuilder codeBuilder = new StringBuilder();
-        SecureRandom secureRandom = new SecureRandom();
-        for(int i =0 ; i <length ;i++) {
-            int randomText = secureRandom.nextInt(characters.length());
-            codeBuilder.append(characters.charAt(randomText));
+    // unique across every token row, used and expired ones included, so a late click on an old
+    // code can only ever reach the account it was sent to
+    private String generateActivationCode() {
+        for (int attempt = 0; attempt < MAX_CODE_ATTEMPTS; attempt++) {
+            String code = activationCodeGenerator.next();
+            if (!tokenRepo.existsByToken(code)) {
+                return code;
+            }
         }
-        return codeBuilder.toString();
+        throw new ServiceOverloadedException("Could not allocate an activation code, please retry shortly", Duration.ofSeconds(1));
     }
 
     public AuthenticationResponse authenticate(AuthenticateRequest request)
@@ -112,13 +142,18 @@ public class AuthenticationService {
         return AuthenticationResponse.builder().token(jwtToken).build();
     }
 
-    @Transactional
-    public void activateAccount(String token) throws MessagingException {
-        Token savedToken = tokenRepo.findByToken(token).orElseThrow(()->new RuntimeException("Invalid token"));
+    // the expired path commits the replacement token and its queued email before reporting the expiry
+    @Transactional(noRollbackFor = ActivationTokenExpiredException.class)
+    public void activateAccount(String token) {
+        Token savedToken = tokenRepo.findByToken(token)
+                .orElseThrow(()->new RuntimeException("Invalid token"));
+        if (savedToken.getValidateAt() != null) {
+            throw new ConflictException("Activation token has already been used");
+        }
         if(LocalDateTime.now().isAfter(savedToken.getExpiresAt()))
         {
             sendValidationEmail(savedToken.getUser());
-            throw new RuntimeException("Activation token has expired.A new token has been send to the account");
+            throw new ActivationTokenExpiredException("Activation token has expired.A new token has been send to the account");
         }
 
         var user = userRepo.findById(savedToken.getUser().getId()).orElseThrow(()-> new UsernameNotFoundException("User not found"));
@@ -2,14 +2,19 @@ package com.tech.BookStore.auth;
 
 import lombok.Getter;
 
+import java.util.List;
+
 @Getter
 public enum EmailTemplate {
 
-    ACTIVATE_ACCOUNT("activate_account");
+    ACTIVATE_ACCOUNT("active_account", "username", "confirmationUrl", "activation_code");
 
     private final String name;
+    // every variable the template reads; EmailTemplateRenderer compiles the template around them
+    private final List<String> variables;
 
-    EmailTemplate(String name) {
+    EmailTemplate(String name, String... variables) {
         this.name = name;
+        this.variables = List.of(variables);
     }
 }
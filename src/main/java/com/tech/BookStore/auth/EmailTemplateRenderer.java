@@ -0,0 +1,129 @@
+package com.tech.BookStore.auth;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.unbescape.html.HtmlEscape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Renders email templates without going through Thymeleaf per message. At startup every
+ * {@link EmailTemplate} is rendered once with a sentinel in place of each variable and the output is
+ * cut at the sentinels into static fragments; a message is then those fragments joined with the
+ * escaped values, built in a per-thread buffer. A second render with different sentinels must give
+ * the same fragments, otherwise the template depends on its values (conditionals, formatting) and
+ * stays on Thymeleaf.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailTemplateRenderer {
+
+    // a buffer that grew past this is not kept for the next message
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final SpringTemplateEngine springTemplateEngine;
+    private final Map<EmailTemplate, CompiledTemplate> compiled = new EnumMap<>(EmailTemplate.class);
+
+    @PostConstruct
+    void compileAll() {
+        for (EmailTemplate template : EmailTemplate.values()) {
+            CompiledTemplate first = compile(template);
+            CompiledTemplate second = compile(template);
+            if (first.sameShape(second)) {
+                compiled.put(template, first);
+            } else {
+                log.warn("Email template {} depends on its values, rendering it with Thymeleaf", template.getName());
+            }
+        }
+    }
+
+    public String render(EmailTemplate template, Map<String, String> values) {
+        CompiledTemplate compiledTemplate = compiled.get(template);
+        if (compiledTemplate == null) {
+            return renderWithThymeleaf(template.getName(), values);
+        }
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        compiledTemplate.writeTo(buffer, template.getVariables(), values);
+        String html = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    String renderWithThymeleaf(String templateName, Map<String, String> values) {
+        Context context = new Context();
+        context.setVariables(new HashMap<>(values));
+        return springTemplateEngine.process(templateName, context);
+    }
+
+    private CompiledTemplate compile(EmailTemplate template) {
+        // letters and digits only, so no escaping or formatting can touch them on the way through
+        String nonce = UUID.randomUUID().toString().replace("-", "");
+        List<String> variables = template.getVariables();
+        Map<String, String> sentinels = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            sentinels.put(variables.get(i), sentinel(nonce, i));
+        }
+        String output = renderWithThymeleaf(template.getName(), sentinels);
+
+        List<String> fragments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int next = -1;
+            int slot = -1;
+            for (int i = 0; i < variables.size(); i++) {
+                int at = output.indexOf(sentinel(nonce, i), start);
+                if (at >= 0 && (next < 0 || at < next)) {
+                    next = at;
+                    slot = i;
+                }
+            }
+            if (next < 0) {
+                fragments.add(output.substring(start));
+                break;
+            }
+            fragments.add(output.substring(start, next));
+            slots.add(slot);
+            start = next + sentinel(nonce, slot).length();
+        }
+        return new CompiledTemplate(fragments.toArray(String[]::new), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static String sentinel(String nonce, int index) {
+        return "tplvar" + nonce + "x" + index + "x";
+    }
+
+    private record CompiledTemplate(String[] fragments, int[] slots) {
+
+        void writeTo(StringBuilder buffer, List<String> variables, Map<String, String> values) {
+            for (int i = 0; i < slots.length; i++) {
+                buffer.append(fragments[i]);
+                String value = values.get(variables.get(slots[i]));
+                if (value != null) {
+                    // the escaping Thymeleaf applies to th:text and attribute values
+                    buffer.append(HtmlEscape.escapeHtml4Xml(value));
+                }
+            }
+            buffer.append(fragments[slots.length]);
+        }
+
+        boolean sameShape(CompiledTemplate other) {
+            return Arrays.equals(fragments, other.fragments) && Arrays.equals(slots, other.slots);
+        }
+    }
+}
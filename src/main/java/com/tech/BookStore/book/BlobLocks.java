@@ -0,0 +1,17 @@
+package com.tech.BookStore.book;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped in-process locks keyed by blob path. {@link FileStorageService} holds one while it
+ * reuses or writes a blob and {@link CoverBlobSweeper} while it checks and deletes one, so a
+ * deduplicated upload can never be handed a path the sweeper is removing at the same moment.
+ */
+@Component
+public class BlobLocks extends StripedLocks<String> {
+
+    public BlobLocks(@Value("${application.file.blobs.lock-stripes:256}") int stripes) {
+        super(stripes);
+    }
+}
@@ -10,6 +10,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.List;
@@ -20,6 +22,16 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        // findAllDisplayableBooks / findDisplayableBooksAfter
+        @Index(name = "idx_book_displayable", columnList = "archived, shareable, owner_id, created_date"),
+        // owner listings, and the owner side of the returned-books queries
+        @Index(name = "idx_book_owner_created", columnList = "owner_id, created_date"),
+        // cover blob sweeper prefix lookups
+        @Index(name = "idx_book_cover", columnList = "book_cover")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
 public class Book extends BaseEntity {
 
     private String title;
@@ -35,6 +47,13 @@ public class Book extends BaseEntity {
 
     private boolean shareable;
 
+    private double ratingSum;
+
+    private int ratingCount;
+
+    @Version
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "owner_id")
     private User owner;
@@ -48,15 +67,12 @@ public class Book extends BaseEntity {
     @Transient
     public double getRate()
     {
-        if(feedbacks == null || feedbacks.isEmpty())
+        if(ratingCount == 0)
         {
             return 0.0;
         }
 
-        var rate =  this.feedbacks.stream()
-                .mapToDouble(Feedback::getNote)
-                .average()
-                .orElse(0.0);
+        var rate = ratingSum / ratingCount;
 
         double roundedRate = Math.round(rate * 10.0)/10.0;
 
@@ -0,0 +1,133 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.search.BookIndexer;
+import com.tech.BookStore.user.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Owner operations over many books at once. Whatever the number of ids, a call costs one query to
+ * resolve ownership and current state plus one set-based UPDATE; every id gets its own outcome so
+ * a partly foreign or stale selection does not fail the whole request.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookBulkService {
+
+    static final int MAX_IDS = 500;
+
+    private final BookRepo bookRepo;
+    private final BookTransactionHistoryRepo bookTransactionHistoryRepo;
+    private final BookIndexer bookIndexer;
+
+    @Transactional
+    public BulkUpdateResponse setShareableStatus(List<Integer> bookIds, boolean shareable, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        LocalDateTime now = LocalDateTime.now();
+        return setStatus(bookIds, user, status -> status.shareable() == shareable, toUpdate -> {
+            int updated = bookRepo.updateShareable(toUpdate, user.getId(), shareable, now);
+            bookIndexer.updateStatusAfterCommit(toUpdate, shareable, null, now);
+            return updated;
+        });
+    }
+
+    @Transactional
+    public BulkUpdateResponse setArchivedStatus(List<Integer> bookIds, boolean archived, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        LocalDateTime now = LocalDateTime.now();
+        return setStatus(bookIds, user, status -> status.archived() == archived, toUpdate -> {
+            int updated = bookRepo.updateArchived(toUpdate, user.getId(), archived, now);
+            bookIndexer.updateStatusAfterCommit(toUpdate, null, archived, now);
+            return updated;
+        });
+    }
+
+    @Transactional
+    public BulkUpdateResponse approveReturnedBooks(List<Integer> bookIds, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Map<Integer, BulkOutcome> outcomes = new LinkedHashMap<>();
+        List<Integer> owned = resolveOwned(bookIds, user, outcomes);
+        if (owned.isEmpty()) {
+            return response(outcomes, 0);
+        }
+        Set<Integer> awaiting = new HashSet<>(bookTransactionHistoryRepo.findBookIdsAwaitingApproval(owned));
+        List<Integer> toApprove = new ArrayList<>();
+        for (Integer bookId : owned) {
+            if (awaiting.contains(bookId)) {
+                toApprove.add(bookId);
+                outcomes.put(bookId, BulkOutcome.UPDATED);
+            } else {
+                outcomes.put(bookId, BulkOutcome.NOTHING_TO_APPROVE);
+            }
+        }
+        int updated = toApprove.isEmpty()
+                ? 0
+                : bookTransactionHistoryRepo.approveReturns(toApprove, user.getId(), LocalDateTime.now());
+        return response(outcomes, updated);
+    }
+
+    private BulkUpdateResponse setStatus(List<Integer> bookIds, UserPrincipal user,
+                                         Predicate<BookStatus> alreadySet,
+                                         Function<List<Integer>, Integer> update) {
+        Map<Integer, BulkOutcome> outcomes = new LinkedHashMap<>();
+        Map<Integer, BookStatus> owned = new LinkedHashMap<>();
+        for (BookStatus status : findStatuses(bookIds, user, outcomes)) {
+            owned.put(status.id(), status);
+        }
+        List<Integer> toUpdate = new ArrayList<>();
+        owned.forEach((bookId, status) -> {
+            if (alreadySet.test(status)) {
+                outcomes.put(bookId, BulkOutcome.UNCHANGED);
+            } else {
+                toUpdate.add(bookId);
+                outcomes.put(bookId, BulkOutcome.UPDATED);
+            }
+        });
+        int updated = toUpdate.isEmpty() ? 0 : update.apply(toUpdate);
+        return response(outcomes, updated);
+    }
+
+    private List<Integer> resolveOwned(List<Integer> bookIds, UserPrincipal user, Map<Integer, BulkOutcome> outcomes) {
+        return findStatuses(bookIds, user, outcomes).stream()
+                .map(BookStatus::id)
+                .toList();
+    }
+
+    // marks every id NOT_FOUND or NOT_OWNER up front and returns the statuses of the caller's own books
+    private List<BookStatus> findStatuses(List<Integer> bookIds, UserPrincipal user, Map<Integer, BulkOutcome> outcomes) {
+        Set<Integer> distinct = new LinkedHashSet<>(bookIds);
+        distinct.forEach(bookId -> outcomes.put(bookId, BulkOutcome.NOT_FOUND));
+        List<BookStatus> owned = new ArrayList<>();
+        for (BookStatus status : bookRepo.findStatuses(distinct)) {
+            if (Objects.equals(status.ownerId(), user.getId())) {
+                owned.add(status);
+            } else {
+                outcomes.put(status.id(), BulkOutcome.NOT_OWNER);
+            }
+        }
+        return owned;
+    }
+
+    private static BulkUpdateResponse response(Map<Integer, BulkOutcome> outcomes, int updated) {
+        return BulkUpdateResponse.builder()
+                .updated(updated)
+                .results(outcomes.entrySet().stream()
+                        .map(entry -> new BulkUpdateResponse.Result(entry.getKey(), entry.getValue()))
+                        .toList())
+                .build();
+    }
+}
@@ -2,19 +2,28 @@ package com.tech.BookStore.book;
 
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("books")
 @RequiredArgsConstructor
 @Tag(name = "Book")
 public class BookController {
     private final BookService bookService;
+    private final BookCoverService bookCoverService;
+    private final BookImportService bookImportService;
+    private final BookBulkService bookBulkService;
 
     @PostMapping
     public ResponseEntity<Integer> saveBook(
@@ -25,68 +34,142 @@ public class BookController {
         return ResponseEntity.ok(bookService.save(bookRequest,connectedUser));
     }
 
+    @PostMapping(value = "/import",consumes = {"text/csv","application/x-ndjson"})
+    public ResponseEntity<BookImportResponse> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body,
+            Authentication connectedUser
+    ) throws IOException {
+        return ResponseEntity.ok(bookImportService.importBooks(BookImportFormat.fromContentType(contentType),body,connectedUser));
+    }
+
     @GetMapping("{book-id}")
     public ResponseEntity<BookResponse> findBookById(
             @PathVariable("book-id") Integer bookId
     ){
-        return ResponseEntity.ok(bookService.findById(bookId));
+        BookResponse book = bookService.findById(bookId);
+        return withETag(book.getVersion()).body(book);
     }
 
     @GetMapping
     public ResponseEntity<PageResponse<BookResponse>> findAllBooks(
             @RequestParam(name = "page",defaultValue = "0",required = false) int page,
             @RequestParam(name = "size",defaultValue = "10",required = false) int size,
+            @RequestParam(name = "after",required = false) String after,
+            @RequestParam(name = "withTotal",defaultValue = "true",required = false) boolean withTotal,
             Authentication connectedUser
 
     ) {
-        return ResponseEntity.ok(bookService.findAllBooks(page,size,connectedUser));
+        if(after != null)
+        {
+            return ResponseEntity.ok(bookService.findAllBooks(after,size,connectedUser));
+        }
+        return ResponseEntity.ok(bookService.findAllBooks(page,size,withTotal,connectedUser));
     }
 
     @GetMapping("/owner")
     public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
             @RequestParam(name = "page",defaultValue = "0",required = false) int page,
             @RequestParam(name = "size",defaultValue = "10",required = false) int size,
+            @RequestParam(name = "after",required = false) String after,
+            @RequestParam(name = "withTotal",defaultValue = "true",required = false) boolean withTotal,
             Authentication connectedUser
     )
     {
-        return ResponseEntity.ok(bookService.findAllBooksByOwner(page,size,connectedUser));
+        if(after != null)
+        {
+            return ResponseEntity.ok(bookService.findAllBooksByOwner(after,size,connectedUser));
+        }
+        return ResponseEntity.ok(bookService.findAllBooksByOwner(page,size,withTotal,connectedUser));
     }
 
     @GetMapping("/borrowed")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowedOwner(
             @RequestParam(name = "page",defaultValue = "0",required = false) int page,
             @RequestParam(name = "size",defaultValue = "10",required = false) int size,
+            @RequestParam(name = "after",required = false) String after,
+            @RequestParam(name = "withTotal",defaultValue = "true",required = false) boolean withTotal,
             Authentication connectedUser
     )
     {
-        return ResponseEntity.ok(bookService.findAllBorrowedOwner(page,size,connectedUser));
+        if(after != null)
+        {
+            return ResponseEntity.ok(bookService.findAllBorrowedOwner(after,size,connectedUser));
+        }
+        return ResponseEntity.ok(bookService.findAllBorrowedOwner(page,size,withTotal,connectedUser));
     }
 
     @GetMapping("/returned")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
             @RequestParam(name = "page",defaultValue = "0",required = false) int page,
             @RequestParam(name = "size",defaultValue = "10",required = false) int size,
+            @RequestParam(name = "after",required = false) String after,
+            @RequestParam(name = "withTotal",defaultValue = "true",required = false) boolean withTotal,
             Authentication connectedUser
     )
     {
-        return ResponseEntity.ok(bookService.findAllReturnedBooks(page,size,connectedUser));
+        if(after != null)
+        {
+            return ResponseEntity.ok(bookService.findAllReturnedBooks(after,size,connectedUser));
+        }
+        return ResponseEntity.ok(bookService.findAllReturnedBooks(page,size,withTotal,connectedUser));
     }
 
     @PatchMapping("shareable/{book-id}")
     public ResponseEntity<Integer> updateShareableStatus(
             @PathVariable("book-id") Integer bookId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication connectedUser
     )
     {
-        return ResponseEntity.ok(bookService.updateShareableStatus(bookId,connectedUser));
+        return withETag(bookService.updateShareableStatus(bookId,ifMatch,connectedUser)).body(bookId);
     }
     @PatchMapping("archived/{book-id}")
     public ResponseEntity<Integer> updateArchivedStatus(
             @PathVariable("book-id") Integer bookId,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication connectedUser
+    )
+    {
+        return withETag(bookService.updateArchivedStatus(bookId,ifMatch,connectedUser)).body(bookId);
+    }
+
+    @PutMapping("shareable/{book-id}")
+    public ResponseEntity<Integer> setShareableStatus(
+            @PathVariable("book-id") Integer bookId,
+            @Valid @RequestBody BookStatusRequest request,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Authentication connectedUser
     )
     {
-        return ResponseEntity.ok(bookService.updateArchivedStatus(bookId,connectedUser));
+        return withETag(bookService.setShareableStatus(bookId,request.value(),ifMatch,connectedUser)).body(bookId);
+    }
+    @PutMapping("archived/{book-id}")
+    public ResponseEntity<Integer> setArchivedStatus(
+            @PathVariable("book-id") Integer bookId,
+            @Valid @RequestBody BookStatusRequest request,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication connectedUser
+    )
+    {
+        return withETag(bookService.setArchivedStatus(bookId,request.value(),ifMatch,connectedUser)).body(bookId);
+    }
+
+    @PutMapping("shareable")
+    public ResponseEntity<BulkUpdateResponse> setShareableStatus(
+            @Valid @RequestBody BulkStatusRequest request,
+            Authentication connectedUser
+    )
+    {
+        return ResponseEntity.ok(bookBulkService.setShareableStatus(request.bookIds(),request.value(),connectedUser));
+    }
+    @PutMapping("archived")
+    public ResponseEntity<BulkUpdateResponse> setArchivedStatus(
+            @Valid @RequestBody BulkStatusRequest request,
+            Authentication connectedUser
+    )
+    {
+        return ResponseEntity.ok(bookBulkService.setArchivedStatus(request.bookIds(),request.value(),connectedUser));
     }
 
     @PostMapping("borrow/{book-id}")
@@ -116,6 +199,15 @@ public class BookController {
         return ResponseEntity.ok(bookService.approveReturnBorrowedBook(bookId,connectedUser));
     }
 
+    @PatchMapping("/borrow/return/approve")
+    public ResponseEntity<BulkUpdateResponse> approveReturnBorrowBooks(
+            @Valid @RequestBody BulkBookRequest request,
+            Authentication connectedUser
+    )
+    {
+        return ResponseEntity.ok(bookBulkService.approveReturnedBooks(request.bookIds(),connectedUser));
+    }
+
     @PostMapping(value = "/cover/{book-id}",consumes = "multipart/form-data")
     public ResponseEntity<?> uploadCoverPicture(
             @PathVariable("book-id") Integer bookId,
@@ -127,7 +219,21 @@ public class BookController {
         return ResponseEntity.accepted().build();
     }
 
+    @GetMapping("/cover/{book-id}")
+    public void findCoverPicture(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "size",required = false) String size,
+            @RequestParam(name = "v",required = false) String version,
+            Authentication connectedUser,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        bookCoverService.writeCover(bookId,size,version,connectedUser,request,response);
+    }
 
-
-
+    private static ResponseEntity.BodyBuilder withETag(Long version)
+    {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        return version == null ? builder : builder.eTag(String.valueOf(version));
+    }
 }
@@ -0,0 +1,7 @@
+package com.tech.BookStore.book;
+
+public record BookCoverRef(
+        Integer id,
+        String bookCover
+) {
+}
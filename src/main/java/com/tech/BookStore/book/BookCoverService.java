@@ -0,0 +1,220 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.user.UserPrincipal;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Serves stored cover files. Stored files are never rewritten (a new upload gets a new name),
+ * so the file name doubles as a strong validator and as the version in the cover URL.
+ * Covers of shareable, unarchived books are public so plain image tags can load them; any other
+ * cover is only served to the book's owner and answers 404 to everyone else.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookCoverService {
+
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, no-cache";
+    private static final String PRIVATE_IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final String PRIVATE_REVALIDATE = "private, no-cache";
+
+    private final BookRepo bookRepo;
+
+    @Value("${application.file.upload.photos-output-path}")
+    private String fileUploadPath;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    public String coverUrl(Book book) {
+        if (book.getBookCover() == null) {
+            return null;
+        }
+        return contextPath + "/books/cover/" + book.getId() + "?v=" + version(book.getBookCover());
+    }
+
+    public String thumbnailUrl(Book book, ThumbnailSize size) {
+        if (book.getBookCover() == null) {
+            return null;
+        }
+        return contextPath + "/books/cover/" + book.getId() + "?size=" + size.suffix() + "&v=" + version(book.getBookCover());
+    }
+
+    // connectedUser is null for anonymous requests
+    public void writeCover(Integer bookId, String size, String requestedVersion, Authentication connectedUser,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Book book = bookRepo.findById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("No book found with the Id::" + bookId));
+        boolean visibleToAll = book.isShareable() && !book.isArchived();
+        if (!visibleToAll && !isOwner(book, connectedUser)) {
+            throw new EntityNotFoundException("No book found with the Id::" + bookId);
+        }
+        if (book.getBookCover() == null) {
+            throw new EntityNotFoundException("No cover found for the book with the Id::" + bookId);
+        }
+        Path file = resolve(book.getBookCover());
+        String version = version(book.getBookCover());
+        String eTag = "\"" + version + "\"";
+        boolean immutable = version.equals(requestedVersion);
+        if (size != null) {
+            ThumbnailSize thumbnailSize = ThumbnailSize.fromParam(size);
+            Path thumbnail = thumbnailSize.pathFor(file);
+            if (Files.isRegularFile(thumbnail)) {
+                file = thumbnail;
+                eTag = "\"" + version + "-" + thumbnailSize.suffix() + "\"";
+            } else {
+                // the thumbnail is still being generated and will replace the original under this URL
+                immutable = false;
+            }
+        }
+        long length = Files.size(file);
+
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        if (visibleToAll) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE : REVALIDATE);
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? PRIVATE_IMMUTABLE : PRIVATE_REVALIDATE);
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        response.setContentType(ImageFormat.fromFileName(file.getFileName().toString())
+                .map(ImageFormat::getMediaType)
+                .orElse("application/octet-stream"));
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, eTag);
+        if (range != null) {
+            if (length == 0 || !satisfiable(range, length)) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+        transfer(file, start, count, request, response);
+    }
+
+    // Tomcat's NIO connector sends the file from the kernel page cache once the servlet returns;
+    // anywhere else we fall back to a channel transfer, which still avoids a user-space copy loop.
+    private void transfer(Path file, long start, long count,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private HttpRange requestedRange(HttpServletRequest request, String eTag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasText(rangeHeader)) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        // multipart/byteranges is not worth it for images; a full 200 is a valid answer
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    private boolean satisfiable(HttpRange range, long length) {
+        try {
+            return range.getRangeStart(length) < length;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOwner(Book book, Authentication connectedUser) {
+        return connectedUser != null
+                && connectedUser.getPrincipal() instanceof UserPrincipal user
+                && Objects.equals(book.getOwner().getId(), user.getId());
+    }
+
+    private Path resolve(String bookCover) {
+        Path root = Paths.get(fileUploadPath).toAbsolutePath().normalize();
+        Path file = root.resolve(bookCover).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            throw new EntityNotFoundException("Cover file is missing");
+        }
+        return file;
+    }
+
+    private String version(String bookCover) {
+        String fileName = Paths.get(bookCover).getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,36 @@
+package com.tech.BookStore.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tech.BookStore.exception.OperationNotPermittedException;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+public enum BookImportFormat {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    BookImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public static BookImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType requested = MediaType.parseMediaType(contentType);
+            for (BookImportFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(requested)) {
+                    return format;
+                }
+            }
+        }
+        throw new OperationNotPermittedException("Import bodies must be text/csv or application/x-ndjson");
+    }
+
+    BookRowReader open(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+        return this == CSV ? new CsvBookRowReader(reader) : new NdjsonBookRowReader(reader, objectMapper);
+    }
+}
@@ -0,0 +1,24 @@
+package com.tech.BookStore.book;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportResponse {
+
+    private long imported;
+    private long failed;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    public record RowError(
+            long row,
+            List<String> errors
+    ) {
+    }
+}
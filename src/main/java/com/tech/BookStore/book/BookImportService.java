@@ -0,0 +1,131 @@
+package com.tech.BookStore.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tech.BookStore.search.BookIndexer;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserPrincipal;
+import com.tech.BookStore.user.UserRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams an import body into the book table. Valid rows are persisted in chunks, one transaction
+ * per chunk; Hibernate turns each flush into JDBC insert batches (hibernate.jdbc.batch_size) and the
+ * persistence context is cleared after every chunk, so memory does not grow with the body.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BookMapper bookMapper;
+    private final UserRepo userRepo;
+    private final BookIndexer bookIndexer;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${application.books.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public BookImportResponse importBooks(BookImportFormat format, InputStream body, Authentication connectedUser) throws IOException {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Report report = new Report();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try (BookRowReader rows = format.open(reader, objectMapper)) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                if (row.error() != null) {
+                    report.fail(row.number(), List.of(row.error()));
+                    continue;
+                }
+                List<String> violations = validator.validate(row.request()).stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .toList();
+                if (!violations.isEmpty()) {
+                    report.fail(row.number(), violations);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    persist(chunk, user.getId(), report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                persist(chunk, user.getId(), report);
+            }
+        }
+        return report.toResponse();
+    }
+
+    private void persist(List<ImportRow> chunk, Integer ownerId, Report report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // a million inserts would only churn the second-level cache; the session ends with the chunk
+                entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+                User owner = userRepo.getReferenceById(ownerId);
+                for (ImportRow row : chunk) {
+                    Book book = bookMapper.toBook(row.request());
+                    book.setOwner(owner);
+                    entityManager.persist(book);
+                    bookIndexer.indexAfterCommit(book);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            report.imported += chunk.size();
+        } catch (DataAccessException | PersistenceException e) {
+            String reason = "Could not be saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (ImportRow row : chunk) {
+                report.fail(row.number(), List.of(reason));
+            }
+        }
+    }
+
+    private static final class Report {
+
+        private long imported;
+        private long failed;
+        private final List<BookImportResponse.RowError> errors = new ArrayList<>();
+
+        void fail(long row, List<String> reasons) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportResponse.RowError(row, reasons));
+            }
+        }
+
+        BookImportResponse toResponse() {
+            return BookImportResponse.builder()
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.tech.BookStore.book;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Striped in-process locks keyed by book id: requests for the same book queue up behind each
+ * other while different books almost never share a stripe. They only cover this instance; the
+ * unique active-loan column on the history table is what keeps several instances correct.
+ */
+@Component
+public class BookLocks extends StripedLocks<Integer> {
+
+    public BookLocks(@Value("${application.books.lock-stripes:1024}") int stripes) {
+        super(stripes);
+    }
+}
@@ -1,15 +1,20 @@
 package com.tech.BookStore.book;
 
 import com.tech.BookStore.history.BookTransactionHistory;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
+@RequiredArgsConstructor
 public class BookMapper {
+    private final BookCoverService bookCoverService;
+
     public Book toBook(BookRequest bookRequest){
         return Book.builder()
                 .id(bookRequest.id())
                 .title(bookRequest.title())
                 .authorName(bookRequest.authorName())
+                .isbn(bookRequest.isbn())
                 .synopsis(bookRequest.synopsis())
                 .archived(false)
                 .shareable(bookRequest.shareable())
@@ -26,7 +31,10 @@ public class BookMapper {
                 .rate(book.getRate())
                 .archived(book.isArchived())
                 .shareable(book.isShareable())
+                .version(book.getVersion())
                 .owner(book.getOwner().fullName())
+                .coverUrl(bookCoverService.coverUrl(book))
+                .thumbnailUrl(bookCoverService.thumbnailUrl(book, ThumbnailSize.LIST))
                 .build();
     }
 
@@ -1,13 +1,26 @@
 package com.tech.BookStore.book;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface BookRepo extends JpaRepository<Book,Integer>, JpaSpecificationExecutor<Book> {
 
+    @EntityGraph(attributePaths = "owner")
     @Query("""
         SELECT book
         FROM Book book
@@ -16,4 +29,173 @@ public interface BookRepo extends JpaRepository<Book,Integer>, JpaSpecificationE
         AND book.owner.id != :userId
 """)
     Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
+
+    @EntityGraph(attributePaths = "owner")
+    @Query("""
+        SELECT book
+        FROM Book book
+        WHERE book.archived = false
+        AND book.shareable = true
+        AND book.owner.id != :userId
+""")
+    Slice<Book> findDisplayableBooksSlice(Pageable pageable, Integer userId);
+
+    @Override
+    @EntityGraph(attributePaths = "owner")
+    Page<Book> findAll(Specification<Book> spec, Pageable pageable);
+
+    @EntityGraph(attributePaths = "owner")
+    @Query("""
+        SELECT book
+        FROM Book book
+        WHERE book.owner.id = :ownerId
+""")
+    Slice<Book> findOwnerBooksSlice(Integer ownerId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "owner")
+    @Query("""
+        SELECT book
+        FROM Book book
+        WHERE book.archived = false
+        AND book.shareable = true
+        AND book.owner.id != :userId
+        AND (book.createdDate < :createdDate
+            OR (book.createdDate = :createdDate AND book.id < :id))
+        ORDER BY book.createdDate DESC, book.id DESC
+""")
+    List<Book> findDisplayableBooksAfter(Integer userId, LocalDateTime createdDate, Integer id, Limit limit);
+
+    @EntityGraph(attributePaths = "owner")
+    @Query("""
+        SELECT book
+        FROM Book book
+        WHERE book.owner.id = :ownerId
+        AND (book.createdDate < :createdDate
+            OR (book.createdDate = :createdDate AND book.id < :id))
+        ORDER BY book.createdDate DESC, book.id DESC
+""")
+    List<Book> findOwnerBooksAfter(Integer ownerId, LocalDateTime createdDate, Integer id, Limit limit);
+
+    // Row lock for read-modify-write updates that must not race with each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT book
+        FROM Book book
+        WHERE book.id = :bookId
+""")
+    Optional<Book> findByIdForUpdate(Integer bookId);
+
+    @Query("""
+        SELECT new com.tech.BookStore.book.BookCoverRef(book.id, book.bookCover)
+        FROM Book book
+        WHERE book.bookCover IS NOT NULL
+        AND book.id > :afterId
+        ORDER BY book.id
+""")
+    List<BookCoverRef> findCoversAfter(Integer afterId, Limit limit);
+
+    @Query("""
+        SELECT DISTINCT book.bookCover
+        FROM Book book
+        WHERE book.bookCover LIKE :prefix%
+""")
+    List<String> findCoversStartingWith(String prefix);
+
+    boolean existsByBookCover(String bookCover);
+
+    @Query("""
+        SELECT new com.tech.BookStore.book.BookStatus(book.id, book.owner.id, book.version, book.shareable, book.archived)
+        FROM Book book
+        WHERE book.id = :bookId
+""")
+    Optional<BookStatus> findStatus(Integer bookId);
+
+    @Query("""
+        SELECT new com.tech.BookStore.book.BookStatus(book.id, book.owner.id, book.version, book.shareable, book.archived)
+        FROM Book book
+        WHERE book.id IN :bookIds
+""")
+    List<BookStatus> findStatuses(Collection<Integer> bookIds);
+
+    // Status writes are single guarded statements: the owner check and the If-Match version
+    // travel in the WHERE clause, so there is nothing to read first and nothing to race.
+    // A null version means the caller sent If-Match: *.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Book book
+        SET book.shareable = :shareable,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :now,
+            book.lastModifiedBy = :userId
+        WHERE book.id = :bookId
+        AND book.owner.id = :userId
+        AND (:version IS NULL OR book.version = :version)
+""")
+    int updateShareable(Integer bookId, Integer userId, boolean shareable, Long version, LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Book book
+        SET book.archived = :archived,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :now,
+            book.lastModifiedBy = :userId
+        WHERE book.id = :bookId
+        AND book.owner.id = :userId
+        AND (:version IS NULL OR book.version = :version)
+""")
+    int updateArchived(Integer bookId, Integer userId, boolean archived, Long version, LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Book book
+        SET book.shareable = CASE WHEN book.shareable = true THEN false ELSE true END,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :now,
+            book.lastModifiedBy = :userId
+        WHERE book.id = :bookId
+        AND book.owner.id = :userId
+        AND (:version IS NULL OR book.version = :version)
+""")
+    int toggleShareable(Integer bookId, Integer userId, Long version, LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Book book
+        SET book.archived = CASE WHEN book.archived = true THEN false ELSE true END,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :now,
+            book.lastModifiedBy = :userId
+        WHERE book.id = :bookId
+        AND book.owner.id = :userId
+        AND (:version IS NULL OR book.version = :version)
+""")
+    int toggleArchived(Integer bookId, Integer userId, Long version, LocalDateTime now);
+
+    // set-based variants for the bulk endpoints; rows already holding the value are left alone
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Book book
+        SET book.shareable = :shareable,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :now,
+            book.lastModifiedBy = :userId
+        WHERE book.id IN :bookIds
+        AND book.owner.id = :userId
+        AND book.shareable <> :shareable
+""")
+    int updateShareable(Collection<Integer> bookIds, Integer userId, boolean shareable, LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Book book
+        SET book.archived = :archived,
+            book.version = book.version + 1,
+            book.lastModifiedDate = :now,
+            book.lastModifiedBy = :userId
+        WHERE book.id IN :bookIds
+        AND book.owner.id = :userId
+        AND book.archived <> :archived
+""")
+    int updateArchived(Collection<Integer> bookIds, Integer userId, boolean archived, LocalDateTime now);
 }
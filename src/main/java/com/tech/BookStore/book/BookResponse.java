@@ -21,8 +21,10 @@ public class BookResponse {
     private String synopsis;
 
     private String owner;
-    private byte[] cover;
+    private String coverUrl;
+    private String thumbnailUrl;
     private double rate;
     private boolean archived;
     private boolean shareable;
+    private Long version;
 }
@@ -0,0 +1,15 @@
+package com.tech.BookStore.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pulls import rows one at a time so a body of any size is read with constant memory.
+ */
+interface BookRowReader extends Closeable {
+
+    /**
+     * @return the next row, or null at the end of the input
+     */
+    ImportRow next() throws IOException;
+}
@@ -1,20 +1,33 @@
 package com.tech.BookStore.book;
 
+import com.tech.BookStore.common.BaseEntity;
+import com.tech.BookStore.exception.ConflictException;
 import com.tech.BookStore.exception.OperationNotPermittedException;
+import com.tech.BookStore.exception.PreconditionFailedException;
+import com.tech.BookStore.exception.PreconditionRequiredException;
 import com.tech.BookStore.history.BookTransactionHistory;
-import com.tech.BookStore.user.User;
+import com.tech.BookStore.search.BookIndexer;
+import com.tech.BookStore.user.UserPrincipal;
+import com.tech.BookStore.user.UserRepo;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
 import static com.tech.BookStore.book.BookSpecification.withOwnerId;
 
@@ -26,16 +39,48 @@ public class BookService {
     private final BookRepo bookRepo;
     private final BookTransactionHistoryRepo bookTransactionHistoryRepo;
     private final FileStorageService fileStorageService;
-
+    private final ThumbnailService thumbnailService;
+    private final BookIndexer bookIndexer;
+    private final BookLocks bookLocks;
+    private final UserRepo userRepo;
+    private final TransactionTemplate transactionTemplate;
+
+    // one read-write transaction, so an edit reads the book it updates from the primary
+    @Transactional
     public Integer save(BookRequest bookRequest, Authentication connectedUser)
     {
-        User user = ((User) connectedUser.getPrincipal());
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        if(bookRequest.id() != null)
+        {
+            return update(bookRequest, user);
+        }
         Book book = bookMapper.toBook(bookRequest);
-        book.setOwner(user);
-        
-        return bookRepo.save(book).getId();
+        book.setOwner(userRepo.getReferenceById(user.getId()));
+        Book savedBook = bookRepo.save(book);
+        bookIndexer.indexAfterCommit(savedBook);
+        return savedBook.getId();
+    }
+
+    // edits go through the managed entity so the version check applies and cover, ratings and
+    // archived flag are kept instead of being reset by a freshly mapped book
+    private Integer update(BookRequest bookRequest, UserPrincipal user)
+    {
+        Book book = bookRepo.findById(bookRequest.id())
+                .orElseThrow(()->new EntityNotFoundException("No book found with the Id:: "+ bookRequest.id()));
+        if(!Objects.equals(book.getOwner().getId(),user.getId())){
+            throw new OperationNotPermittedException("You cant update others books");
+        }
+        book.setTitle(bookRequest.title());
+        book.setAuthorName(bookRequest.authorName());
+        book.setIsbn(bookRequest.isbn());
+        book.setSynopsis(bookRequest.synopsis());
+        book.setShareable(bookRequest.shareable());
+        Book savedBook = bookRepo.save(book);
+        bookIndexer.indexAfterCommit(savedBook);
+        return savedBook.getId();
     }
     
+    @Transactional(readOnly = true)
     public BookResponse findById(Integer bookId)
     {
         return bookRepo.findById(bookId)
@@ -44,177 +89,277 @@ public class BookService {
     }
 
 
-    public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page,size, Sort.by("createDate").descending());
-        Page<Book> books =bookRepo.findAllDisplayableBooks(pageable,user.getId());
-        List<BookResponse> bookResponseList = books.stream()
-                .map(bookMapper :: toBookResponse)
-                .toList();
-        return new PageResponse<>(
-                bookResponseList,
-                books.getNumber(),
-                books.getSize(),
-                books.getTotalElements(),
-                books.getTotalPages(),
-                books.isFirst(),
-                books.isLast()
-        );
+    @Transactional(readOnly = true)
+    public PageResponse<BookResponse> findAllBooks(int page, int size, boolean withTotal, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page,size, Sort.by("createdDate").descending());
+        Slice<Book> books = withTotal
+                ? bookRepo.findAllDisplayableBooks(pageable,user.getId())
+                : bookRepo.findDisplayableBooksSlice(pageable,user.getId());
+        return toPageResponse(books, bookMapper::toBookResponse);
+    }
 
+    @Transactional(readOnly = true)
+    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, boolean withTotal, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page,size, Sort.by("createdDate").descending());
+        Slice<Book> books = withTotal
+                ? bookRepo.findAll(withOwnerId(user.getId()),pageable)
+                : bookRepo.findOwnerBooksSlice(user.getId(),pageable);
+        return toPageResponse(books, bookMapper::toBookResponse);
     }
 
-    public PageResponse<BookResponse> findAllBooksByOwner(int page, int size, Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page,size, Sort.by("createDate").descending());
-        Page<Book> books =bookRepo.findAll(withOwnerId(user.getId()),pageable);
-        List<BookResponse> bookResponseList = books.stream()
-                .map(bookMapper :: toBookResponse)
-                .toList();
-        return new PageResponse<>(
-                bookResponseList,
-                books.getNumber(),
-                books.getSize(),
-                books.getTotalElements(),
-                books.getTotalPages(),
-                books.isFirst(),
-                books.isLast()
-        );
+    @Transactional(readOnly = true)
+    public PageResponse<BorrowedBookResponse> findAllBorrowedOwner(int page, int size, boolean withTotal, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page,size, Sort.by("createdDate").descending());
+        Slice<BookTransactionHistory> allBorrowedBooks = withTotal
+                ? bookTransactionHistoryRepo.findAllBorrowedOwner(pageable,user.getId())
+                : bookTransactionHistoryRepo.findBorrowedSlice(pageable,user.getId());
+        return toPageResponse(allBorrowedBooks, bookMapper::toBorrowedBookResponse);
     }
 
-    public PageResponse<BorrowedBookResponse> findAllBorrowedOwner(int page, int size, Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page,size, Sort.by("createDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks =bookTransactionHistoryRepo.findAllBorrowedOwner(pageable,user.getId());
+    @Transactional(readOnly = true)
+    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, boolean withTotal, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Pageable pageable = PageRequest.of(page,size, Sort.by("createdDate").descending());
+        Slice<BookTransactionHistory> allBorrowedBooks = withTotal
+                ? bookTransactionHistoryRepo.findAllReturnedBooks(pageable,user.getId())
+                : bookTransactionHistoryRepo.findReturnedSlice(pageable,user.getId());
+        return toPageResponse(allBorrowedBooks, bookMapper::toBorrowedBookResponse);
+    }
 
-        List<BorrowedBookResponse> bookResponses = allBorrowedBooks.stream()
-                .map(bookMapper :: toBorrowedBookResponse)
-                .toList();
+    // A Page carries totals (and cost a COUNT query); a plain Slice only knows whether more rows exist.
+    private <E, R> PageResponse<R> toPageResponse(Slice<E> slice, Function<E, R> mapper) {
+        var response = PageResponse.<R>builder()
+                .content(slice.stream().map(mapper).toList())
+                .number(slice.getNumber())
+                .size(slice.getSize())
+                .first(slice.isFirst())
+                .last(slice.isLast())
+                .hasNext(slice.hasNext());
+        if(slice instanceof Page<E> page)
+        {
+            response.totalElements(page.getTotalElements())
+                    .totalPage(page.getTotalPages());
+        }
+        return response.build();
+    }
 
-        return new PageResponse<>(
-                bookResponses,
-                allBorrowedBooks.getNumber(),
-                allBorrowedBooks.getSize(),
-                allBorrowedBooks.getTotalElements(),
-                allBorrowedBooks.getTotalPages(),
-                allBorrowedBooks.isFirst(),
-                allBorrowedBooks.isLast()
+    @Transactional(readOnly = true)
+    public PageResponse<BookResponse> findAllBooks(String after, int size, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        List<Book> books = bookRepo.findDisplayableBooksAfter(user.getId(), cursor.createdDate(), cursor.id(), keysetLimit(size));
+        return toCursorResponse(books, size, cursor, bookMapper::toBookResponse);
+    }
 
+    @Transactional(readOnly = true)
+    public PageResponse<BookResponse> findAllBooksByOwner(String after, int size, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        List<Book> books = bookRepo.findOwnerBooksAfter(user.getId(), cursor.createdDate(), cursor.id(), keysetLimit(size));
+        return toCursorResponse(books, size, cursor, bookMapper::toBookResponse);
+    }
 
+    @Transactional(readOnly = true)
+    public PageResponse<BorrowedBookResponse> findAllBorrowedOwner(String after, int size, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        List<BookTransactionHistory> histories = bookTransactionHistoryRepo.findBorrowedAfter(user.getId(), cursor.createdDate(), cursor.id(), keysetLimit(size));
+        return toCursorResponse(histories, size, cursor, bookMapper::toBorrowedBookResponse);
+    }
 
-        );
+    @Transactional(readOnly = true)
+    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(String after, int size, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        PageCursor cursor = PageCursor.decode(after);
+        List<BookTransactionHistory> histories = bookTransactionHistoryRepo.findReturnedAfter(user.getId(), cursor.createdDate(), cursor.id(), keysetLimit(size));
+        return toCursorResponse(histories, size, cursor, bookMapper::toBorrowedBookResponse);
     }
 
-    public PageResponse<BorrowedBookResponse> findAllReturnedBooks(int page, int size, Authentication connectedUser) {
+    // One extra row tells us whether another page exists without running a COUNT.
+    private Limit keysetLimit(int size) {
+        if(size < 1)
+        {
+            throw new OperationNotPermittedException("Page size must be at least one");
+        }
+        return Limit.of(size + 1);
+    }
 
-        User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page,size, Sort.by("createDate").descending());
-        Page<BookTransactionHistory> allBorrowedBooks =bookTransactionHistoryRepo.findAllReturnedBooks(pageable,user.getId());
+    private <E extends BaseEntity, R> PageResponse<R> toCursorResponse(List<E> rows, int size, PageCursor cursor, Function<E, R> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        return PageResponse.<R>builder()
+                .content(page.stream().map(mapper).toList())
+                .size(size)
+                .first(cursor.isFirst())
+                .last(!hasNext)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? PageCursor.after(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
 
-        List<BorrowedBookResponse> bookResponses = allBorrowedBooks.stream()
-                .map(bookMapper :: toBorrowedBookResponse)
-                .toList();
+    /**
+     * Flips the shareable flag in one guarded UPDATE, then reads the new state back in the same
+     * transaction for the indexes: a toggle costs two statements, MySQL cannot return the row it
+     * updated. Returns the new version for the ETag.
+     */
+    @Transactional
+    public Long updateShareableStatus(Integer bookId, String ifMatch, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Long expectedVersion = expectedVersion(ifMatch);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = bookRepo.toggleShareable(bookId, user.getId(), expectedVersion, now);
+        return afterToggle(updated, bookId, user, expectedVersion, now, "You cant update books shareable status");
+    }
 
-        return new PageResponse<>(
-                bookResponses,
-                allBorrowedBooks.getNumber(),
-                allBorrowedBooks.getSize(),
-                allBorrowedBooks.getTotalElements(),
-                allBorrowedBooks.getTotalPages(),
-                allBorrowedBooks.isFirst(),
-                allBorrowedBooks.isLast()
+    @Transactional
+    public Long updateArchivedStatus(Integer bookId, String ifMatch, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Long expectedVersion = expectedVersion(ifMatch);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = bookRepo.toggleArchived(bookId, user.getId(), expectedVersion, now);
+        return afterToggle(updated, bookId, user, expectedVersion, now, "You cant update others books archived status");
+    }
 
-        );
+    /**
+     * Sets the shareable flag to the given value with a single statement. If-Match is required; only
+     * {@code If-Match: *} skips the version check, and then null is returned and no ETag goes out.
+     */
+    @Transactional
+    public Long setShareableStatus(Integer bookId, boolean shareable, String ifMatch, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Long expectedVersion = expectedVersion(ifMatch);
+        LocalDateTime now = LocalDateTime.now();
+        if (bookRepo.updateShareable(bookId, user.getId(), shareable, expectedVersion, now) == 0) {
+            throw rejection(bookId, user, expectedVersion, "You cant update books shareable status");
+        }
+        bookIndexer.updateStatusAfterCommit(bookId, shareable, null, now);
+        return expectedVersion == null ? null : expectedVersion + 1;
+    }
 
+    @Transactional
+    public Long setArchivedStatus(Integer bookId, boolean archived, String ifMatch, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        Long expectedVersion = expectedVersion(ifMatch);
+        LocalDateTime now = LocalDateTime.now();
+        if (bookRepo.updateArchived(bookId, user.getId(), archived, expectedVersion, now) == 0) {
+            throw rejection(bookId, user, expectedVersion, "You cant update others books archived status");
+        }
+        bookIndexer.updateStatusAfterCommit(bookId, null, archived, now);
+        return expectedVersion == null ? null : expectedVersion + 1;
     }
 
-    public Integer updateShareableStatus(Integer bookId, Authentication connectedUser) {
-        Book book =  bookRepo.findById(bookId)
+    private Long afterToggle(int updated, Integer bookId, UserPrincipal user, Long expectedVersion,
+                             LocalDateTime now, String notOwnerMessage) {
+        if (updated == 0) {
+            throw rejection(bookId, user, expectedVersion, notOwnerMessage);
+        }
+        BookStatus status = bookRepo.findStatus(bookId)
                 .orElseThrow(()->new EntityNotFoundException("No book found with the Id::"+bookId));
-        User user = ((User) connectedUser.getPrincipal());
-        if(!Objects.equals(book.getOwner().getId(),user.getId())){
-            throw new OperationNotPermittedException("You cant update books shareable status");
+        bookIndexer.updateStatusAfterCommit(bookId, status.shareable(), status.archived(), now);
+        return status.version();
+    }
 
+    // the UPDATE matched nothing, only now is it worth a read to tell the caller why
+    private RuntimeException rejection(Integer bookId, UserPrincipal user, Long expectedVersion, String notOwnerMessage) {
+        BookStatus status = bookRepo.findStatus(bookId).orElse(null);
+        if (status == null) {
+            return new EntityNotFoundException("No book found with the Id::"+bookId);
         }
-        book.setShareable(!book.isShareable());
-        bookRepo.save(book);
-        return bookId;
+        if (!Objects.equals(status.ownerId(), user.getId())) {
+            return new OperationNotPermittedException(notOwnerMessage);
+        }
+        return new PreconditionFailedException("The book was modified, expected version "
+                + expectedVersion + " but found " + status.version());
     }
 
-    public Integer updateArchivedStatus(Integer bookId, Authentication connectedUser) {
-        Book book =  bookRepo.findById(bookId)
-                .orElseThrow(()->new EntityNotFoundException("No book found with the Id::"+bookId));
-        User user = ((User) connectedUser.getPrincipal());
-        if(!Objects.equals(book.getOwner().getId(),user.getId())){
-            throw new OperationNotPermittedException("You cant update others books archived status");
-
+    // status writes must be conditional: a single strong entity tag, or "*" to explicitly take any version
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new PreconditionRequiredException("If-Match with the ETag of the book is required");
         }
-        book.setShareable(!book.isShareable());
-        bookRepo.save(book);
-        return bookId;
+        if (ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through to the rejection below
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current version of the book");
     }
 
     public Integer borrowBooks(Integer bookId, Authentication connectedUser) {
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        // the transaction commits before the lock is released, so the next borrower sees the loan
+        return bookLocks.withLock(bookId, () -> transactionTemplate.execute(status -> borrowBook(bookId, user)));
+    }
+
+    private Integer borrowBook(Integer bookId, UserPrincipal user) {
         Book book =  bookRepo.findById(bookId)
                 .orElseThrow(()->new EntityNotFoundException("No book found with the Id::"+bookId));
-        if(book.isArchived() || book.isShareable())
+        if(book.isArchived() || !book.isShareable())
         {
             throw new OperationNotPermittedException("The requested bok cant be borrowed");
 
         }
-        User user = ((User) connectedUser.getPrincipal());
-        if(!Objects.equals(book.getOwner().getId(),user.getId())){
+        if(Objects.equals(book.getOwner().getId(),user.getId())){
             throw new OperationNotPermittedException("You cant borrow your own book");
 
         }
 
-        final boolean isAlreadyBorrowed = bookTransactionHistoryRepo.isAlreadyBorrowed(bookId,user.getId());
+        final boolean isAlreadyBorrowed = bookTransactionHistoryRepo.isAlreadyBorrowed(bookId);
 
         if(isAlreadyBorrowed)
         {
-            throw new OperationNotPermittedException("The requested book is already borrowed");
+            throw new ConflictException("The requested book is already borrowed");
         }
 
         BookTransactionHistory bookTransactionHistory =  BookTransactionHistory.builder()
-                .user(user)
+                .user(userRepo.getReferenceById(user.getId()))
                 .book(book)
                 .returned(false)
                 .returnApproved(false)
                 .build();
-        return bookTransactionHistoryRepo.save(bookTransactionHistory).getId();
+        try {
+            return bookTransactionHistoryRepo.saveAndFlush(bookTransactionHistory).getId();
+        } catch (DataIntegrityViolationException e) {
+            // another instance won the race; the unique active_book_id column rejected our loan
+            throw new ConflictException("The requested book is already borrowed");
+        }
     }
 
+    // archiving or unsharing a lent book must not block its return or the approval
+    @Transactional
     public Integer returnBorrowBook(Integer bookId, Authentication connectedUser) {
         Book book =  bookRepo.findById(bookId)
                 .orElseThrow(()->new EntityNotFoundException("No book found with the Id::"+bookId));
-        if(book.isArchived() || book.isShareable())
-        {
-            throw new OperationNotPermittedException("The requested bok cant be borrowed since its archived or not shareable");
-
-        }
-        User user = ((User) connectedUser.getPrincipal());
-        if(!Objects.equals(book.getOwner().getId(),user.getId())){
-            throw new OperationNotPermittedException("You cant borrow your own book");
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        if(Objects.equals(book.getOwner().getId(),user.getId())){
+            throw new OperationNotPermittedException("You cant borrow or return your own book");
 
         }
 
         BookTransactionHistory transactionHistory = bookTransactionHistoryRepo.findByBookIdAndUserId(bookId,user.getId())
                 .orElseThrow(()-> new OperationNotPermittedException("You did not borrow this book"));
-
+        transactionHistory.setReturned(true);
         return bookTransactionHistoryRepo.save(transactionHistory).getId();
 
     }
 
+    @Transactional
     public Integer approveReturnBorrowedBook(Integer bookId, Authentication connectedUser) {
         Book book = bookRepo.findById(bookId)
                 .orElseThrow(()-> new EntityNotFoundException("No book found with the ID::"+bookId));
-        if(book.isArchived() || !book.isShareable())
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        if(!Objects.equals(book.getOwner().getId(),user.getId()))
         {
-            throw new OperationNotPermittedException("The requested book cannot be borrowed since its archived or not shareable");
-        }
-        User user = ((User) connectedUser.getPrincipal());
-        if(Objects.equals(book.getOwner().getId(),user.getId()))
-        {
-            throw new OperationNotPermittedException("You cannot borrow or return your own book");
+            throw new OperationNotPermittedException("You cannot approve the return of a book you do not own");
         }
         BookTransactionHistory bookTransactionHistory =  bookTransactionHistoryRepo.findByBookIdAndOwnerId(bookId, user.getId())
                 .orElseThrow(()->new OperationNotPermittedException("The book is not returned yet.You cannot approve"));
@@ -223,12 +368,17 @@ public class BookService {
 
     }
 
+    @Transactional
     public void uploadBookCoverPicture(MultipartFile file, Authentication connectedUser, Integer bookId) {
         Book book = bookRepo.findById(bookId)
                 .orElseThrow(()-> new EntityNotFoundException("No book found with the Id::" + bookId));
-        User user = ((User)  connectedUser.getPrincipal());
-        var bookCover = fileStorageService.saveFile(file,book,user.getId());
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        if(!Objects.equals(book.getOwner().getId(),user.getId())){
+            throw new OperationNotPermittedException("You cannot upload a cover for a book you do not own");
+        }
+        var bookCover = fileStorageService.saveFile(file);
         book.setBookCover(bookCover);
         bookRepo.save(book);
+        thumbnailService.schedule(book.getId(), bookCover);
     }
 }
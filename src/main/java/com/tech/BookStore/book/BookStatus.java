@@ -0,0 +1,10 @@
+package com.tech.BookStore.book;
+
+public record BookStatus(
+        Integer id,
+        Integer ownerId,
+        Long version,
+        boolean shareable,
+        boolean archived
+) {
+}
@@ -0,0 +1,10 @@
+package com.tech.BookStore.book;
+
+import jakarta.validation.constraints.NotNull;
+
+public record BookStatusRequest(
+
+        @NotNull(message = "104")
+        Boolean value
+) {
+}
@@ -1,41 +1,95 @@
 package com.tech.BookStore.book;
 
 import com.tech.BookStore.history.BookTransactionHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BookTransactionHistoryRepo extends JpaRepository<BookTransactionHistory,Integer> {
 
+    @EntityGraph(attributePaths = {"book", "book.owner", "user"})
     @Query(
             """
             SELECT history
             FROM BookTransactionHistory history
-            WHERE history.user.id = : userId
+            WHERE history.user.id = :userId
             """
     )
     Page<BookTransactionHistory> findAllBorrowedOwner(Pageable pageable, Integer userId);
+
+    @EntityGraph(attributePaths = {"book", "book.owner", "user"})
+    @Query(
+            """
+            SELECT history
+            FROM BookTransactionHistory history
+            WHERE history.user.id = :userId
+            """
+    )
+    Slice<BookTransactionHistory> findBorrowedSlice(Pageable pageable, Integer userId);
+    @EntityGraph(attributePaths = {"book", "book.owner", "user"})
     @Query(
             """
             SELECT history
             FROM BookTransactionHistory history
-            WHERE history.book.owner.id = : userId
+            WHERE history.book.owner.id = :userId
             """
     )
-    Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer id);
+    Page<BookTransactionHistory> findAllReturnedBooks(Pageable pageable, Integer userId);
+
+    @EntityGraph(attributePaths = {"book", "book.owner", "user"})
+    @Query(
+            """
+            SELECT history
+            FROM BookTransactionHistory history
+            WHERE history.book.owner.id = :userId
+            """
+    )
+    Slice<BookTransactionHistory> findReturnedSlice(Pageable pageable, Integer userId);
+
+    @EntityGraph(attributePaths = {"book", "book.owner", "user"})
+    @Query(
+            """
+            SELECT history
+            FROM BookTransactionHistory history
+            WHERE history.user.id = :userId
+            AND (history.createdDate < :createdDate
+                OR (history.createdDate = :createdDate AND history.id < :id))
+            ORDER BY history.createdDate DESC, history.id DESC
+            """
+    )
+    List<BookTransactionHistory> findBorrowedAfter(Integer userId, LocalDateTime createdDate, Integer id, Limit limit);
+
+    @EntityGraph(attributePaths = {"book", "book.owner", "user"})
+    @Query(
+            """
+            SELECT history
+            FROM BookTransactionHistory history
+            WHERE history.book.owner.id = :userId
+            AND (history.createdDate < :createdDate
+                OR (history.createdDate = :createdDate AND history.id < :id))
+            ORDER BY history.createdDate DESC, history.id DESC
+            """
+    )
+    List<BookTransactionHistory> findReturnedAfter(Integer userId, LocalDateTime createdDate, Integer id, Limit limit);
 
     @Query("""
         SELECT
         (COUNT (*)>0) AS isBorrowed
         FROM BookTransactionHistory bookTransactionHistory
-        WHERE bookTransactionHistory.user.id = :userId
-        AND bookTransactionHistory.book.id = :bookId
+        WHERE bookTransactionHistory.book.id = :bookId
         AND bookTransactionHistory.returnApproved = false
 """)
-    boolean isAlreadyBorrowed(Integer bookId, Integer userId);
+    boolean isAlreadyBorrowed(Integer bookId);
     @Query("""
         SELECT transaction
         FROM BookTransactionHistory transaction
@@ -55,4 +109,26 @@ public interface BookTransactionHistoryRepo extends JpaRepository<BookTransactio
         AND transaction.returnApproved = false 
 """)
    Optional<BookTransactionHistory> findByBookIdAndOwnerId(Integer bookId, Integer userId);
+
+    @Query("""
+        SELECT DISTINCT transaction.book.id
+        FROM BookTransactionHistory transaction
+        WHERE transaction.book.id IN :bookIds
+        AND transaction.returned = true
+        AND transaction.returnApproved = false
+""")
+    List<Integer> findBookIdsAwaitingApproval(Collection<Integer> bookIds);
+
+    // callers pass only book ids the approving user owns
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE BookTransactionHistory transaction
+        SET transaction.returnApproved = true,
+            transaction.lastModifiedDate = :now,
+            transaction.lastModifiedBy = :userId
+        WHERE transaction.book.id IN :bookIds
+        AND transaction.returned = true
+        AND transaction.returnApproved = false
+""")
+    int approveReturns(Collection<Integer> bookIds, Integer userId, LocalDateTime now);
 }
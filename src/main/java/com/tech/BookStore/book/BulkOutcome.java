@@ -0,0 +1,11 @@
+package com.tech.BookStore.book;
+
+public enum BulkOutcome {
+    UPDATED,
+    // the book already had the requested value, nothing was written
+    UNCHANGED,
+    NOT_FOUND,
+    NOT_OWNER,
+    // no returned loan waiting for the owner's approval
+    NOTHING_TO_APPROVE
+}
@@ -0,0 +1,18 @@
+package com.tech.BookStore.book;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkStatusRequest(
+
+        @NotEmpty(message = "105")
+        @Size(max = BookBulkService.MAX_IDS, message = "106")
+        List<@NotNull(message = "105") Integer> bookIds,
+
+        @NotNull(message = "104")
+        Boolean value
+) {
+}
@@ -0,0 +1,22 @@
+package com.tech.BookStore.book;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkUpdateResponse {
+
+    private int updated;
+    private List<Result> results;
+
+    public record Result(
+            Integer bookId,
+            BulkOutcome outcome
+    ) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.tech.BookStore.book;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Deletes cover blobs (and their thumbnails) that no book references anymore. A blob is only
+ * removed once its mtime is older than the grace period, which covers the window between
+ * {@link FileStorageService} writing or touching a blob and the book row pointing at it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CoverBlobSweeper {
+
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+
+    private final BookRepo bookRepo;
+    private final BlobLocks blobLocks;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.file.upload.photos-output-path}")
+    private String fileUploadPath;
+
+    @Value("${application.file.blobs.grace-period:PT1H}")
+    private Duration gracePeriod;
+
+    @Scheduled(initialDelayString = "${application.file.blobs.sweep-interval:PT1H}",
+            fixedDelayString = "${application.file.blobs.sweep-interval:PT1H}")
+    public void sweep() {
+        Path blobsRoot = Paths.get(fileUploadPath, FileStorageService.BLOBS_DIR);
+        if (!Files.isDirectory(blobsRoot)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        int removed = 0;
+        try {
+            removeStaleTempFiles(blobsRoot.resolve(FileStorageService.TEMP_DIR), cutoff);
+            for (Path first : shards(blobsRoot)) {
+                for (Path second : shards(first)) {
+                    removed += sweepShard(second, cutoff);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cover blob sweep stopped early", e);
+        }
+        meterRegistry.counter("book.covers.blobs.removed").increment(removed);
+        if (removed > 0) {
+            log.info("Removed {} unreferenced cover blobs", removed);
+        }
+    }
+
+    // One query per shard directory keeps both the round trips and the in-memory reference set small
+    private int sweepShard(Path shard, Instant cutoff) throws IOException {
+        String prefix = String.join("/", FileStorageService.BLOBS_DIR,
+                shard.getParent().getFileName().toString(), shard.getFileName().toString()) + "/";
+        Set<String> referenced = new HashSet<>(bookRepo.findCoversStartingWith(prefix));
+        List<Path> blobs;
+        try (Stream<Path> files = Files.list(shard)) {
+            blobs = files.filter(file -> !isThumbnail(file)).toList();
+        }
+        int removed = 0;
+        for (Path blob : blobs) {
+            String blobPath = prefix + blob.getFileName();
+            if (!referenced.contains(blobPath) && blobLocks.withLock(blobPath, () -> deleteIfStale(blob, blobPath, cutoff))) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // Runs under the blob's lock, so an upload deduplicated onto this blob either refreshed the
+    // mtime before we look at it or finds the blob gone and writes it again
+    private boolean deleteIfStale(Path blob, String blobPath, Instant cutoff) throws IOException {
+        try {
+            if (Files.getLastModifiedTime(blob).toInstant().isAfter(cutoff) || bookRepo.existsByBookCover(blobPath)) {
+                return false;
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            Files.deleteIfExists(size.pathFor(blob));
+        }
+        return Files.deleteIfExists(blob);
+    }
+
+    private void removeStaleTempFiles(Path tempFolder, Instant cutoff) throws IOException {
+        if (!Files.isDirectory(tempFolder)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(tempFolder)) {
+            for (Path file : files.toList()) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private List<Path> shards(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(Files::isDirectory)
+                    .filter(dir -> SHARD.matcher(dir.getFileName().toString()).matches())
+                    .toList();
+        }
+    }
+
+    private boolean isThumbnail(Path file) {
+        String name = file.getFileName().toString();
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            if (name.endsWith("-" + size.suffix() + ".jpg")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.exception.OperationNotPermittedException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 reader: a header row naming the columns (title, authorName, isbn, synopsis and the
+ * optional shareable, in any order), quoted fields may contain commas, quotes ("") and line breaks.
+ */
+final class CsvBookRowReader implements BookRowReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "authorname", "isbn", "synopsis");
+
+    private final Reader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final StringBuilder field = new StringBuilder();
+    private int pushedBack = -2;
+    private long rowNumber;
+
+    CsvBookRowReader(Reader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new OperationNotPermittedException("The CSV body is empty");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new OperationNotPermittedException("The CSV header has no '" + column + "' column");
+            }
+        }
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+        rowNumber++;
+        if (record.size() > columns.size()) {
+            return ImportRow.failed(rowNumber, "Expected " + columns.size() + " columns but found " + record.size());
+        }
+        return ImportRow.parsed(rowNumber, new BookRequest(
+                null,
+                column(record, "title"),
+                column(record, "authorname"),
+                column(record, "isbn"),
+                column(record, "synopsis"),
+                Boolean.parseBoolean(column(record, "shareable"))
+        ));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String column(List<String> record, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new OperationNotPermittedException("Unterminated quoted field after row " + rowNumber);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
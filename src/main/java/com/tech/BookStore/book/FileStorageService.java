@@ -1,29 +1,163 @@
 package com.tech.BookStore.book;
 
+import com.tech.BookStore.exception.OperationNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
 
+/**
+ * Stores covers by content: a file lives at {@code blobs/ab/cd/<sha-256>.<ext>}, so identical
+ * uploads share one file (and one page-cache entry) no matter how many books point at it.
+ * Blobs are referenced from {@link Book#getBookCover()} only; {@link CoverBlobSweeper}
+ * removes the ones no book points at anymore.
+ */
 @Service
 @RequiredArgsConstructor
 public class FileStorageService {
 
+    public static final String BLOBS_DIR = "blobs";
+    static final String TEMP_DIR = "tmp";
+
+    private final MeterRegistry meterRegistry;
+    private final BlobLocks blobLocks;
+
     @Value("${application.file.upload.photos-output-path}")
     private String fileUploadPath;
 
-    public String saveFile(
-            @NonNull MultipartFile sourceFile,
-            @NonNull Book book,
-            @NonNull Integer userId) {
+    @Value("${application.file.upload.max-size:50MB}")
+    private DataSize maxFileSize;
+
+    public String saveFile(@NonNull MultipartFile sourceFile) {
+        return uploadFile(sourceFile);
+    }
+
+    // Streams the part into a temp file while hashing it, then renames it to its content address.
+    // Neither the upload nor a half-written blob is ever held in (or visible from) memory.
+    private String uploadFile(MultipartFile sourceFile) {
+        long maxBytes = maxFileSize.toBytes();
+        if (sourceFile.getSize() > maxBytes) {
+            throw new MaxUploadSizeExceededException(maxBytes);
+        }
+        Path blobsRoot = Paths.get(fileUploadPath, BLOBS_DIR);
+        Path tempFile = null;
+        try (InputStream input = new BufferedInputStream(sourceFile.getInputStream())) {
+            ImageFormat format = sniffFormat(input);
+            Path tempFolder = Files.createDirectories(blobsRoot.resolve(TEMP_DIR));
+            tempFile = Files.createTempFile(tempFolder, "upload-", ".part");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream hashing = new DigestInputStream(new SizeLimitedInputStream(input, maxBytes), digest)) {
+                Files.copy(hashing, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String blobPath = blobPath(HexFormat.of().formatHex(digest.digest()), format);
+            Path target = Paths.get(fileUploadPath).resolve(blobPath);
+            Path upload = tempFile;
+            String result = blobLocks.withLock(blobPath, () -> touchOrMove(upload, target)) ? "deduplicated" : "stored";
+            meterRegistry.counter("book.covers.uploads", "result", result).increment();
+            return blobPath;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store the uploaded file", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    // Returns true when an identical blob was already there. The sweeper takes the same lock before
+    // it deletes, so a blob seen here stays put until the refreshed mtime protects it; the
+    // NoSuchFileException fallback covers a sweeper on another instance that got there first.
+    private boolean touchOrMove(Path tempFile, Path target) throws IOException {
+        try {
+            // refresh the mtime so the sweeper's grace period covers the book update that follows
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            Files.createDirectories(target.getParent());
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            return false;
+        }
+    }
+
+    static String blobPath(String hash, ImageFormat format) {
+        return String.join("/", BLOBS_DIR, hash.substring(0, 2), hash.substring(2, 4), hash + "." + format.getExtension());
+    }
 
-        final String fileUploadSubPath = "users" + File.separator + userId;
-        return uploadFile(sourceFile,fileUploadSubPath);
+    private ImageFormat sniffFormat(InputStream input) throws IOException {
+        input.mark(ImageFormat.SIGNATURE_LENGTH);
+        byte[] header = input.readNBytes(ImageFormat.SIGNATURE_LENGTH);
+        input.reset();
+        return ImageFormat.sniff(header)
+                .orElseThrow(() -> new OperationNotPermittedException("The uploaded file is not a supported image"));
     }
 
-    private String uploadFile(MultipartFile sourceFile, String fileUploadSubPath) {
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // the sweeper removes leftover .part files
+        }
+    }
+
+    // Aborts the copy as soon as the stream goes past the limit, whatever size the client declared
+    private static class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(long bytes) {
+            count += bytes;
+            if (count > maxBytes) {
+                throw new MaxUploadSizeExceededException(maxBytes);
+            }
+        }
     }
 }
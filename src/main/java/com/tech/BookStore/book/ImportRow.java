@@ -0,0 +1,19 @@
+package com.tech.BookStore.book;
+
+/**
+ * One data row of an import body: either a parsed request or the reason it could not be parsed.
+ */
+record ImportRow(
+        long number,
+        BookRequest request,
+        String error
+) {
+
+    static ImportRow parsed(long number, BookRequest request) {
+        return new ImportRow(number, request, null);
+    }
+
+    static ImportRow failed(long number, String error) {
+        return new ImportRow(number, null, error);
+    }
+}
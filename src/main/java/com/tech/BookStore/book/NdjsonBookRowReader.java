@@ -0,0 +1,53 @@
+package com.tech.BookStore.book;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One JSON object per line, with the same fields as {@link BookRequest}; any id is ignored.
+ */
+final class NdjsonBookRowReader implements BookRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long rowNumber;
+
+    NdjsonBookRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectReader = objectMapper.readerFor(BookRequest.class);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        rowNumber++;
+        try {
+            BookRequest request = objectReader.readValue(line);
+            return ImportRow.parsed(rowNumber, new BookRequest(
+                    null,
+                    request.title(),
+                    request.authorName(),
+                    request.isbn(),
+                    request.synopsis(),
+                    request.shareable()
+            ));
+        } catch (JsonProcessingException e) {
+            return ImportRow.failed(rowNumber, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,49 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.common.BaseEntity;
+import com.tech.BookStore.exception.OperationNotPermittedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position over (createdDate, id), both descending.
+ * An empty token means "start from the newest row".
+ */
+public record PageCursor(LocalDateTime createdDate, Integer id) {
+
+    public static final PageCursor FIRST = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Integer.MAX_VALUE);
+
+    private static final String SEPARATOR = "|";
+
+    public static PageCursor after(BaseEntity entity) {
+        return new PageCursor(entity.getCreatedDate(), entity.getId());
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Integer.valueOf(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new OperationNotPermittedException("Invalid page cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = createdDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return FIRST.equals(this);
+    }
+}
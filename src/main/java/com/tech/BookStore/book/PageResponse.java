@@ -1,5 +1,6 @@
 package com.tech.BookStore.book;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
@@ -9,13 +10,16 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PageResponse<T> {
 
     private List<T> content;
-    private int number;
+    private Integer number;
     private int size;
-    private long totalElements;
-    private int totalPage;
+    private Long totalElements;
+    private Integer totalPage;
     private boolean first;
     private  boolean last;
+    private boolean hasNext;
+    private String nextCursor;
 }
@@ -0,0 +1,41 @@
+package com.tech.BookStore.book;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed array of in-process locks picked by the hash of a key: work on the same key queues up
+ * behind each other while different keys almost never share a stripe. The stripe count is
+ * rounded up to a power of two.
+ */
+public class StripedLocks<K> {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T, E extends Exception> T withLock(K key, LockedAction<T, E> action) throws E {
+        ReentrantLock lock = stripes[index(key)];
+        lock.lock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int index(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    @FunctionalInterface
+    public interface LockedAction<T, E extends Exception> {
+        T run() throws E;
+    }
+}
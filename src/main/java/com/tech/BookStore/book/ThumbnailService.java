@@ -0,0 +1,263 @@
+package com.tech.BookStore.book;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scales uploaded covers down to the {@link ThumbnailSize} boxes off the request thread.
+ * Jobs are keyed by book: a second upload for a book that is still queued only replaces the
+ * cover to process. When the queue is full the submitting thread does the work itself, which
+ * slows uploads down instead of piling up work in memory. Once the workers are shut down new
+ * jobs are dropped; the catch-up on the next start picks their covers up again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailService {
+
+    private static final int CATCH_UP_BATCH = 500;
+
+    private final BookRepo bookRepo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.file.upload.photos-output-path}")
+    private String fileUploadPath;
+
+    @Value("${application.file.thumbnails.workers:2}")
+    private int workers;
+
+    @Value("${application.file.thumbnails.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${application.file.thumbnails.catch-up:true}")
+    private boolean catchUp;
+
+    // book id -> latest cover waiting for a worker
+    private final Map<Integer, String> pending = new ConcurrentHashMap<>();
+
+    ThreadPoolExecutor executor;
+    private Timer processingTimer;
+    private Counter failures;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "thumbnail-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                ThumbnailService::runOrReject);
+        Gauge.builder("book.thumbnails.queue", executor, e -> e.getQueue().size())
+                .description("Thumbnail jobs waiting for a worker")
+                .register(meterRegistry);
+        processingTimer = Timer.builder("book.thumbnails.processing")
+                .description("Time to decode a cover and write all of its thumbnails")
+                .register(meterRegistry);
+        failures = Counter.builder("book.thumbnails.failures")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues thumbnail generation for the book's cover.
+     *
+     * @return false when no new job was queued: one for this book was already waiting and has
+     * just been updated, or the workers are shut down
+     */
+    public boolean schedule(Integer bookId, String bookCover) {
+        if (pending.put(bookId, bookCover) != null) {
+            return false;
+        }
+        try {
+            executor.execute(() -> process(bookId));
+        } catch (RejectedExecutionException e) {
+            // nothing will ever process the entry, and leaving it would swallow later jobs for the book
+            pending.remove(bookId);
+            log.debug("Thumbnail workers are shut down, dropped the job for book {}", bookId);
+            return false;
+        }
+        return true;
+    }
+
+    // CallerRunsPolicy, except that after shutdown it rejects instead of silently discarding the job
+    private static void runOrReject(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Thumbnail workers are shut down");
+        }
+        task.run();
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpMissingThumbnails() {
+        if (!catchUp) {
+            return;
+        }
+        int scheduled = 0;
+        int afterId = 0;
+        List<BookCoverRef> covers;
+        do {
+            covers = bookRepo.findCoversAfter(afterId, Limit.of(CATCH_UP_BATCH));
+            for (BookCoverRef cover : covers) {
+                afterId = cover.id();
+                if (isMissingThumbnails(cover.bookCover()) && schedule(cover.id(), cover.bookCover())) {
+                    scheduled++;
+                }
+            }
+        } while (covers.size() == CATCH_UP_BATCH);
+        if (scheduled > 0) {
+            log.info("Scheduled thumbnail generation for {} existing covers", scheduled);
+        }
+    }
+
+    private boolean isMissingThumbnails(String bookCover) {
+        Path original = resolve(bookCover);
+        if (!Files.isRegularFile(original)) {
+            return false;
+        }
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            if (!Files.exists(size.pathFor(original))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void process(Integer bookId) {
+        String bookCover = pending.remove(bookId);
+        // covers are content addressed, so another book with the same cover may have done the work already
+        if (bookCover == null || !isMissingThumbnails(bookCover)) {
+            return;
+        }
+        try {
+            processingTimer.recordCallable(() -> {
+                writeThumbnails(resolve(bookCover));
+                return null;
+            });
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Could not create thumbnails for book {} from {}", bookId, bookCover, e);
+        }
+    }
+
+    private void writeThumbnails(Path original) throws IOException {
+        // decode once, subsampled to about twice the largest box so huge uploads never sit in memory at full size
+        BufferedImage source = read(original, ThumbnailSize.DETAIL.getMaxWidth() * 2, ThumbnailSize.DETAIL.getMaxHeight() * 2);
+        if (source == null) {
+            log.debug("No JDK image reader for {}, serving the original instead", original);
+            return;
+        }
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            Path target = size.pathFor(original);
+            Path tempFile = Files.createTempFile(target.getParent(), "thumb-", ".part");
+            try {
+                writeJpeg(scale(source, size.getMaxWidth(), size.getMaxHeight()), tempFile);
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    private BufferedImage read(Path file, int maxWidth, int maxHeight) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, Math.min(reader.getWidth(0) / maxWidth, reader.getHeight(0) / maxHeight));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int maxWidth, int maxHeight) {
+        double ratio = Math.min(1.0, Math.min((double) maxWidth / source.getWidth(), (double) maxHeight / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha channel, transparent covers go on white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.85f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Path resolve(String bookCover) {
+        return Paths.get(fileUploadPath).resolve(bookCover);
+    }
+}
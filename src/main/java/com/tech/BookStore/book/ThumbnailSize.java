@@ -0,0 +1,45 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.exception.OperationNotPermittedException;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Fixed boxes the covers are scaled into. Thumbnails are stored next to the original
+ * as {@code <name>-<size>.jpg}, so their presence on disk is all the state there is.
+ */
+@Getter
+public enum ThumbnailSize {
+
+    LIST(160, 240),
+    DETAIL(480, 720);
+
+    private final int maxWidth;
+    private final int maxHeight;
+
+    ThumbnailSize(int maxWidth, int maxHeight) {
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    public String suffix() {
+        return name().toLowerCase();
+    }
+
+    public Path pathFor(Path original) {
+        String fileName = original.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return original.resolveSibling(stem + "-" + suffix() + ".jpg");
+    }
+
+    public static ThumbnailSize fromParam(String size) {
+        for (ThumbnailSize value : values()) {
+            if (value.suffix().equalsIgnoreCase(size)) {
+                return value;
+            }
+        }
+        throw new OperationNotPermittedException("Unknown cover size: " + size);
+    }
+}
@@ -36,8 +36,8 @@ public class BaseEntity {
 
     @CreatedBy
     @Column(nullable = false,updatable = false)
-    private LocalDateTime createdBy;
+    private Integer createdBy;
     @LastModifiedBy
     @Column(nullable = false)
-    private LocalDateTime lastModifiedBy;
+    private Integer lastModifiedBy;
 }
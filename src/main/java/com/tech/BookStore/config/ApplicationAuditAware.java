@@ -1,6 +1,6 @@
 package com.tech.BookStore.config;
 
-import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserPrincipal;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -20,7 +20,7 @@ public class ApplicationAuditAware implements AuditorAware<Integer> {
             return Optional.empty();
         }
 
-        User userPrincipal = (User) authentication.getPrincipal();
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         return Optional.ofNullable(userPrincipal.getId());
     }
 }
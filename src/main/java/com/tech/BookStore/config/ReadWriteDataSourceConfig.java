@@ -0,0 +1,108 @@
+package com.tech.BookStore.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Fallback;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Primary and replica pools behind one routing DataSource, active once
+ * {@code application.datasource.replica.url} is set. Without it the application keeps Spring
+ * Boot's single pool and every transaction goes to the primary.
+ * <p>
+ * Needs {@code spring.jpa.open-in-view=false}: an open-in-view session keeps the connection of the
+ * first transaction for the whole request, so a later write would reuse a replica connection.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.replica.url")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("application.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${application.datasource.replica.url}") String url,
+            @Value("${application.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${application.datasource.replica.password:${spring.datasource.password:}}") String password
+    ) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // the clock that expires the read-your-writes pins; any other Ticker bean takes precedence
+    @Bean
+    @Fallback
+    public Ticker ticker() {
+        return Ticker.systemTicker();
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(
+            @Value("${application.datasource.replica.pin-after-write:PT5S}") Duration pinAfterWrite,
+            @Value("${application.datasource.replica.max-pinned-users:100000}") long maxPinnedUsers,
+            Ticker ticker
+    ) {
+        return new ReplicaLagGuard(pinAfterWrite, maxPinnedUsers, ticker);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            ReplicaLagGuard replicaLagGuard,
+            @Value("${spring.jpa.open-in-view:true}") boolean openInView
+    ) {
+        if (openInView) {
+            throw new IllegalStateException("Routing to a replica requires spring.jpa.open-in-view=false");
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaLagGuard);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        return routing;
+    }
+
+    @Bean
+    public ReplicaCacheModeListener replicaCacheModeListener(
+            EntityManagerFactory entityManagerFactory,
+            ReadWriteRoutingDataSource routingDataSource
+    ) {
+        return new ReplicaCacheModeListener(entityManagerFactory, routingDataSource);
+    }
+
+    // the connection is only fetched, and the route chosen, at the first statement
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
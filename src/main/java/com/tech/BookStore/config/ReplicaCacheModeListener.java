@@ -0,0 +1,40 @@
+package com.tech.BookStore.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Keeps replica rows out of the second-level cache. A transaction routed to the replica still
+ * reads cached entities but never puts what it loaded: after a bulk update evicts a region, a
+ * lagging replica row cached by another user's read would otherwise be served from the cache to
+ * a writer pinned to the primary, and read-your-writes would silently break.
+ */
+public class ReplicaCacheModeListener implements TransactionExecutionListener {
+
+    private static final String STORE_MODE = "jakarta.persistence.cache.storeMode";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    public ReplicaCacheModeListener(EntityManagerFactory entityManagerFactory, ReadWriteRoutingDataSource routingDataSource) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null || routingDataSource.currentRoute() != ReadWriteRoutingDataSource.Route.REPLICA) {
+            return;
+        }
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager != null) {
+            // EntityManager.find reads the store mode from here, a Session cache mode alone is overridden
+            entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        }
+    }
+}
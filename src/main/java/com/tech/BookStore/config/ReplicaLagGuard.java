@@ -0,0 +1,59 @@
+package com.tech.BookStore.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.tech.BookStore.user.UserPrincipal;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes on top of an asynchronous replica: once a read-write transaction of a user
+ * commits, that user's read-only transactions stay on the primary for {@code pin-after-write},
+ * which should cover the usual replication lag. Other users keep reading from the replica.
+ * Pins expire on the given {@link Ticker}, the system one unless a test supplies its own.
+ */
+public class ReplicaLagGuard implements TransactionExecutionListener {
+
+    private final Cache<Integer, Boolean> pinnedUsers;
+
+    public ReplicaLagGuard(Duration pinAfterWrite, long maxPinnedUsers, Ticker ticker) {
+        this.pinnedUsers = Caffeine.newBuilder()
+                .maximumSize(maxPinnedUsers)
+                .expireAfterWrite(pinAfterWrite)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            Integer userId = currentUserId();
+            if (userId != null) {
+                pinnedUsers.put(userId, Boolean.TRUE);
+            }
+        }
+    }
+
+    public boolean isCurrentUserPinned() {
+        Integer userId = currentUserId();
+        return userId != null && isPinned(userId);
+    }
+
+    public boolean isPinned(Integer userId) {
+        return pinnedUsers.getIfPresent(userId) != null;
+    }
+
+    private static Integer currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+}
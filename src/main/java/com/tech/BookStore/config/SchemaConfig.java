@@ -0,0 +1,28 @@
+package com.tech.BookStore.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SchemaConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "application.schema.migrations.enabled", havingValue = "true", matchIfMissing = true)
+    public SchemaMigrator schemaMigrator(
+            DataSource dataSource,
+            @Value("${application.schema.migrations.location:classpath:db/migration}") String location
+    ) {
+        return new SchemaMigrator(dataSource, location);
+    }
+
+    // migrate before Hibernate validates the schema
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaMigratorDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class);
+    }
+}
@@ -0,0 +1,103 @@
+package com.tech.BookStore.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Refuses to start when one of the indexes the hot queries rely on is missing or has its columns
+ * in another order, whichever way the schema was created. Without them those queries still work,
+ * only as full scans, which nothing else would notice before production load does.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaIndexVerifier implements SmartInitializingSingleton {
+
+    static final List<RequiredIndex> REQUIRED = List.of(
+            new RequiredIndex("book", "idx_book_displayable", List.of("archived", "shareable", "owner_id", "created_date")),
+            new RequiredIndex("book", "idx_book_owner_created", List.of("owner_id", "created_date")),
+            new RequiredIndex("book", "idx_book_cover", List.of("book_cover")),
+            new RequiredIndex("book_transaction_history", "idx_history_user_book", List.of("user_id", "book_id", "returned", "return_approved")),
+            new RequiredIndex("book_transaction_history", "idx_history_user_created", List.of("user_id", "created_date")),
+            new RequiredIndex("book_transaction_history", "idx_history_book_status", List.of("book_id", "returned", "return_approved")),
+            new RequiredIndex("email_outbox", "idx_email_outbox_due", List.of("status", "next_attempt_at"))
+    );
+
+    private final DataSource dataSource;
+    // the schema has to exist first when Hibernate creates it
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${application.schema.verify-indexes:true}")
+    private boolean enabled;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        List<String> problems = verify();
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Schema is missing required indexes: " + String.join("; ", problems));
+        }
+        log.info("All {} required indexes are present", REQUIRED.size());
+    }
+
+    public List<String> verify() {
+        List<String> problems = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (RequiredIndex required : REQUIRED) {
+                List<String> columns = indexColumns(connection, metaData, required.table()).get(required.name());
+                if (columns == null) {
+                    problems.add(required.name() + " on " + required.table() + " does not exist");
+                } else if (!columns.equals(required.columns())) {
+                    problems.add(required.name() + " on " + required.table() + " covers " + columns + " instead of " + required.columns());
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the index metadata", e);
+        }
+        return problems;
+    }
+
+    // index name -> columns in index order, all lower case
+    private static Map<String, List<String>> indexColumns(Connection connection, DatabaseMetaData metaData, String table) throws SQLException {
+        String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        Map<String, TreeMap<Short, String>> byIndex = new TreeMap<>();
+        try (ResultSet rows = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), tableName, false, false)) {
+            while (rows.next()) {
+                String index = rows.getString("INDEX_NAME");
+                String column = rows.getString("COLUMN_NAME");
+                if (index != null && column != null) {
+                    byIndex.computeIfAbsent(index.toLowerCase(Locale.ROOT), name -> new TreeMap<>())
+                            .put(rows.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        Map<String, List<String>> columns = new TreeMap<>();
+        byIndex.forEach((index, positions) -> columns.put(index, List.copyOf(positions.values())));
+        return columns;
+    }
+
+    record RequiredIndex(
+            String table,
+            String name,
+            List<String> columns
+    ) {
+    }
+}
@@ -0,0 +1,226 @@
+package com.tech.BookStore.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Applies the versioned scripts of {@code application.schema.migrations.location}, named like
+ * Flyway's ({@code V<version>__<description>.sql}), in version order, and records each one in
+ * {@code schema_history} with a checksum. Startup fails when an applied script was edited
+ * afterwards or a new script sorts before one already applied. Runs before the
+ * EntityManagerFactory, so Hibernate only has to validate the result. On MySQL a named lock keeps
+ * two nodes starting together from running the same script twice. A database whose tables predate
+ * the migrations (created by {@code ddl-auto}, no {@code schema_history}) is refused with a message
+ * to recreate it: that schema differs from V1 in columns and indexes, and the old dev profile
+ * dropped it on every start anyway, so there is no data to carry over.
+ */
+@Slf4j
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Pattern SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String LOCK = "bookstore_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 300;
+    // created by V1 and by every Hibernate-managed schema before it
+    private static final String LEGACY_MARKER_TABLE = "role";
+
+    private final DataSource dataSource;
+    private final String location;
+
+    public SchemaMigrator(DataSource dataSource, String location) {
+        this.dataSource = dataSource;
+        this.location = location;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        migrate();
+    }
+
+    // number of scripts applied by this call
+    public int migrate() throws SQLException, IOException {
+        List<Migration> migrations = resolve();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            if (mysql) {
+                acquireLock(connection);
+            }
+            try {
+                return apply(connection, migrations);
+            } finally {
+                if (mysql) {
+                    releaseLock(connection);
+                }
+            }
+        }
+    }
+
+    private int apply(Connection connection, List<Migration> migrations) throws SQLException {
+        if (!tableExists(connection, "schema_history") && tableExists(connection, LEGACY_MARKER_TABLE)) {
+            throw new IllegalStateException("The database has application tables but no schema_history: it was created by "
+                    + "Hibernate's ddl-auto before the versioned migrations existed and cannot be upgraded in place. "
+                    + "That schema was recreated on every start, so it holds no data to keep; drop and recreate the "
+                    + "database (e.g. DROP DATABASE bookstore; CREATE DATABASE bookstore;) and start again.");
+        }
+        createHistoryTable(connection);
+        Map<Integer, Long> applied = appliedChecksums(connection);
+        int latestApplied = applied.keySet().stream().max(Integer::compare).orElse(0);
+        int count = 0;
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.version());
+            if (checksum != null) {
+                if (checksum != migration.checksum()) {
+                    throw new IllegalStateException("Migration " + migration.script() + " was changed after it was applied");
+                }
+                continue;
+            }
+            if (migration.version() < latestApplied) {
+                throw new IllegalStateException("Migration " + migration.script() + " is older than the applied version " + latestApplied);
+            }
+            long started = System.nanoTime();
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.resource(), UTF_8));
+            record(connection, migration, (System.nanoTime() - started) / 1_000_000);
+            log.info("Applied schema migration {}", migration.script());
+            count++;
+        }
+        if (count == 0) {
+            log.info("Schema is up to date at version {}", latestApplied);
+        }
+        return count;
+    }
+
+    private List<Migration> resolve() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "/V*__*.sql");
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource resource : resources) {
+            Matcher matcher = SCRIPT.matcher(String.valueOf(resource.getFilename()));
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Unexpected migration script name " + resource.getFilename());
+            }
+            migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+                    resource.getFilename(), checksum(resource), resource));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Two migration scripts share version " + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private static void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    create table if not exists schema_history (
+                        version integer not null,
+                        description varchar(200) not null,
+                        script varchar(255) not null,
+                        checksum bigint not null,
+                        installed_on datetime(6) not null,
+                        execution_ms bigint not null,
+                        primary key (version)
+                    )""");
+        }
+    }
+
+    // case-insensitive: MySQL keeps the names as written, H2 upper-cases them
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, null, new String[]{"TABLE"})) {
+            while (tables.next()) {
+                if (table.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Map<Integer, Long> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select version, checksum from schema_history")) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void record(Connection connection, Migration migration, long executionMs) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into schema_history (version, description, script, checksum, installed_on, execution_ms) values (?, ?, ?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.setString(3, migration.script());
+            insert.setLong(4, migration.checksum());
+            insert.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+            insert.setLong(6, executionMs);
+            insert.executeUpdate();
+        }
+    }
+
+    private static void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("select get_lock(?, ?)")) {
+            lock.setString(1, LOCK);
+            lock.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet result = lock.executeQuery()) {
+                if (!result.next() || result.getInt(1) != 1) {
+                    throw new IllegalStateException("Timed out waiting for another node to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection connection) throws SQLException {
+        try (PreparedStatement unlock = connection.prepareStatement("select release_lock(?)")) {
+            unlock.setString(1, LOCK);
+            unlock.executeQuery().close();
+        }
+    }
+
+    // line endings are normalised so a CRLF checkout does not look like an edited script
+    private static long checksum(Resource resource) throws IOException {
+        String script;
+        try (InputStream in = resource.getInputStream()) {
+            script = new String(in.readAllBytes(), UTF_8).replace("\r\n", "\n");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(script.getBytes(UTF_8));
+        return crc.getValue();
+    }
+
+    private record Migration(
+            int version,
+            String description,
+            String script,
+            long checksum,
+            Resource resource
+    ) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.tech.BookStore.exception;
+
+public class ActivationTokenExpiredException extends RuntimeException {
+    public ActivationTokenExpiredException(String msg) {
+        super(msg);
+    }
+}
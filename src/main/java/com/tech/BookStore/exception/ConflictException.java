@@ -0,0 +1,7 @@
+package com.tech.BookStore.exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String msg) {
+        super(msg);
+    }
+}
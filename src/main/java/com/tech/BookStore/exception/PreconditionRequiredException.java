@@ -0,0 +1,7 @@
+package com.tech.BookStore.exception;
+
+public class PreconditionRequiredException extends RuntimeException {
+    public PreconditionRequiredException(String msg) {
+        super(msg);
+    }
+}
@@ -1,7 +1,10 @@
 package com.tech.BookStore.feedback;
 
+import com.tech.BookStore.book.Book;
 import com.tech.BookStore.common.BaseEntity;
 import jakarta.persistence.Entity;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -21,4 +24,8 @@ public class Feedback extends BaseEntity {
 
     private String comment;
 
+    @ManyToOne
+    @JoinColumn(name = "book_id")
+    private Book book;
+
 }
@@ -0,0 +1,6 @@
+package com.tech.BookStore.feedback;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FeedbackRepo extends JpaRepository<Feedback,Integer> {
+}
@@ -0,0 +1,48 @@
+package com.tech.BookStore.feedback;
+
+import com.tech.BookStore.book.Book;
+import com.tech.BookStore.book.BookRepo;
+import com.tech.BookStore.exception.OperationNotPermittedException;
+import com.tech.BookStore.user.UserPrincipal;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class FeedbackService {
+
+    private final FeedbackRepo feedbackRepo;
+    private final BookRepo bookRepo;
+
+    // The feedback row and the book's rating aggregate are written in one transaction,
+    // so Book.getRate() never has to read the feedback rows back. The book row is locked
+    // rather than bulk-updated so the second-level cache entry is updated, not the region wiped.
+    @Transactional
+    public Integer save(FeedbackRequest request, Authentication connectedUser) {
+        Book book = bookRepo.findByIdForUpdate(request.bookId())
+                .orElseThrow(()->new EntityNotFoundException("No book found with the Id::"+request.bookId()));
+        if(book.isArchived() || !book.isShareable())
+        {
+            throw new OperationNotPermittedException("You cannot give a feedback for an archived or not shareable book");
+        }
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        if(Objects.equals(book.getOwner().getId(),user.getId()))
+        {
+            throw new OperationNotPermittedException("You cannot give feedback to your own book");
+        }
+
+        Feedback feedback = Feedback.builder()
+                .note(request.note())
+                .comment(request.comment())
+                .book(book)
+                .build();
+        book.setRatingSum(book.getRatingSum() + request.note());
+        book.setRatingCount(book.getRatingCount() + 1);
+        return feedbackRepo.save(feedback).getId();
+    }
+}
@@ -11,7 +11,8 @@ public enum BusinessErrorCodes {
     NEW_PASSWORD_DOES_NOT_MATCH(301, HttpStatus.BAD_REQUEST, "The new password is not matching"),
     ACCOUNT_LOCKED(302, HttpStatus.FORBIDDEN, "User account is locked"),
     ACCOUNT_DISABLED(303, HttpStatus.FORBIDDEN, "User account is disabled"),
-    BAD_CREDENTIALS(304, HttpStatus.FORBIDDEN, "Login and/or password is incorrect");
+    BAD_CREDENTIALS(304, HttpStatus.FORBIDDEN, "Login and/or password is incorrect"),
+    TOO_MANY_REQUESTS(305, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please retry later");
 
     private final int code;
     private final HttpStatus httpStatus;
@@ -1,7 +1,15 @@
 package com.tech.BookStore.handler;
 
+import com.tech.BookStore.exception.ActivationTokenExpiredException;
+import com.tech.BookStore.exception.ConflictException;
 import com.tech.BookStore.exception.OperationNotPermittedException;
+import com.tech.BookStore.exception.PreconditionFailedException;
+import com.tech.BookStore.exception.PreconditionRequiredException;
+import com.tech.BookStore.exception.ServiceOverloadedException;
 import jakarta.mail.MessagingException;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
@@ -9,6 +17,7 @@ import org.springframework.security.authentication.LockedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -137,6 +146,112 @@ public class GlobalExceptionHandler {
         }
 
 
+        @ExceptionHandler(ActivationTokenExpiredException.class)
+        public ResponseEntity<ExceptionResponse> handleException(ActivationTokenExpiredException exp)
+        {
+                return ResponseEntity
+                        .status(BAD_REQUEST)
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error(exp.getMessage()).build()
+
+                        );
+        }
+
+        @ExceptionHandler(ConflictException.class)
+        public ResponseEntity<ExceptionResponse> handleException(ConflictException exp)
+        {
+                return ResponseEntity
+                        .status(CONFLICT)
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error(exp.getMessage()).build()
+
+                        );
+        }
+
+        // a unique constraint lost a race the service could not settle, e.g. two sign-ups with one email
+        @ExceptionHandler(DataIntegrityViolationException.class)
+        public ResponseEntity<ExceptionResponse> handleException(DataIntegrityViolationException exp)
+        {
+                return ResponseEntity
+                        .status(CONFLICT)
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error("The request conflicts with existing data").build()
+
+                        );
+        }
+
+        @ExceptionHandler(PreconditionFailedException.class)
+        public ResponseEntity<ExceptionResponse> handleException(PreconditionFailedException exp)
+        {
+                return ResponseEntity
+                        .status(PRECONDITION_FAILED)
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error(exp.getMessage()).build()
+
+                        );
+        }
+
+        @ExceptionHandler(PreconditionRequiredException.class)
+        public ResponseEntity<ExceptionResponse> handleException(PreconditionRequiredException exp)
+        {
+                return ResponseEntity
+                        .status(PRECONDITION_REQUIRED)
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error(exp.getMessage()).build()
+
+                        );
+        }
+
+        @ExceptionHandler(ServiceOverloadedException.class)
+        public ResponseEntity<ExceptionResponse> handleException(ServiceOverloadedException exp)
+        {
+                return ResponseEntity
+                        .status(SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exp.getRetryAfter().toSeconds())))
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error(exp.getMessage()).build()
+
+                        );
+        }
+
+        @ExceptionHandler(EntityNotFoundException.class)
+        public ResponseEntity<ExceptionResponse> handleException(EntityNotFoundException exp)
+        {
+                return ResponseEntity
+                        .status(NOT_FOUND)
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error(exp.getMessage()).build()
+
+                        );
+        }
+
+        @ExceptionHandler(MaxUploadSizeExceededException.class)
+        public ResponseEntity<ExceptionResponse> handleException(MaxUploadSizeExceededException exp)
+        {
+                return ResponseEntity
+                        .status(PAYLOAD_TOO_LARGE)
+                        .body(
+                                ExceptionResponse
+                                        .builder()
+                                        .error(exp.getMessage()).build()
+
+                        );
+        }
+
         @ExceptionHandler(OperationNotPermittedException.class)
         public ResponseEntity<ExceptionResponse> handleException(OperationNotPermittedException exp)
         {
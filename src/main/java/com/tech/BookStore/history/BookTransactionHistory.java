@@ -3,9 +3,13 @@ package com.tech.BookStore.history;
 import com.tech.BookStore.book.Book;
 import com.tech.BookStore.common.BaseEntity;
 import com.tech.BookStore.user.User;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,6 +22,16 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_history_active_book", columnNames = "active_book_id"),
+        indexes = {
+                // isAlreadyBorrowed-style checks by borrower, findByBookIdAndUserId
+                @Index(name = "idx_history_user_book", columnList = "user_id, book_id, returned, return_approved"),
+                // borrowed-books listings in creation order
+                @Index(name = "idx_history_user_created", columnList = "user_id, created_date"),
+                // owner side: reached from the owner's books, then by book and return state
+                @Index(name = "idx_history_book_status", columnList = "book_id, returned, return_approved")
+        })
 public class BookTransactionHistory extends BaseEntity {
 
     @ManyToOne
@@ -29,4 +43,9 @@ public class BookTransactionHistory extends BaseEntity {
 
     private boolean returned;
     private boolean returnApproved;
+
+    // book_id while the loan is open, NULL once the return is approved: at most one open loan per book
+    @Column(name = "active_book_id", insertable = false, updatable = false,
+            columnDefinition = "INTEGER GENERATED ALWAYS AS (CASE WHEN return_approved = FALSE THEN book_id END)")
+    private Integer activeBookId;
 }
@@ -0,0 +1,32 @@
+package com.tech.BookStore.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queues a rendered email as a row of the caller's transaction: it is sent if and only if
+ * that transaction commits, and it survives restarts until {@link OutboxDispatcher} delivers it.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailOutbox {
+
+    private final OutboxEmailRepo outboxEmailRepo;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String recipient, String subject, String htmlBody) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxEmailRepo.save(OutboxEmail.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(htmlBody)
+                .status(OutboxStatus.PENDING)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+}
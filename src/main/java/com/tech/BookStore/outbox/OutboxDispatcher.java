@@ -0,0 +1,223 @@
+package com.tech.BookStore.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Drains the email outbox. Each batch is claimed with SKIP LOCKED in a short transaction that
+ * leases the rows by pushing their next attempt {@code claim-lease} into the future, then handed to
+ * {@link JavaMailSender#send(MimeMessage...)} outside any transaction, which delivers the whole
+ * batch over a single SMTP connection. A second transaction deletes the delivered rows and
+ * reschedules the failed ones with exponential backoff until {@code max-attempts} is reached; rows
+ * of a node that dies mid-batch simply come due again once the lease runs out. At most
+ * {@code batch-size} messages are in flight per node and a run stops after
+ * {@code max-batches-per-run} so a large backlog cannot monopolise the scheduler.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+
+    private final OutboxEmailRepo outboxEmailRepo;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.mailing.outbox.enabled:true}")
+    private boolean enabled;
+    @Value("${application.mailing.outbox.batch-size:50}")
+    private int batchSize;
+    @Value("${application.mailing.outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+    @Value("${application.mailing.outbox.claim-lease:PT5M}")
+    private Duration claimLease;
+    @Value("${application.mailing.outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${application.mailing.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+    @Value("${application.mailing.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+    @Value("${application.mailing.from:contact@aloka.com}")
+    private String from;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+    private Timer batchTimer;
+    private Counter sent;
+    private Counter retried;
+    private Counter failed;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("email.outbox.backlog", backlog, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.oldest.age", oldestPendingSeconds, AtomicLong::get)
+                .description("Age of the oldest email waiting in the outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("email.outbox.batch")
+                .description("Time to deliver one outbox batch over SMTP")
+                .register(meterRegistry);
+        sent = meterRegistry.counter("email.outbox.sent");
+        retried = meterRegistry.counter("email.outbox.retried");
+        failed = meterRegistry.counter("email.outbox.failed");
+    }
+
+    @Scheduled(initialDelayString = "${application.mailing.outbox.poll-interval:PT5S}",
+            fixedDelayString = "${application.mailing.outbox.poll-interval:PT5S}")
+    public void dispatch() {
+        if (enabled) {
+            dispatchDue();
+        }
+    }
+
+    void dispatchDue() {
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<OutboxEmail> claimed = transactionTemplate.execute(status -> claimBatch());
+                if (claimed == null || claimed.isEmpty()) {
+                    break;
+                }
+                Map<Integer, Exception> failures = deliver(claimed);
+                transactionTemplate.executeWithoutResult(status -> recordResults(claimed, failures));
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            refreshBacklog();
+        }
+    }
+
+    // the row locks last only as long as this transaction; the lease keeps other nodes off the rows afterwards
+    private List<OutboxEmail> claimBatch() {
+        List<OutboxEmail> due = outboxEmailRepo.lockDue(LocalDateTime.now(), Limit.of(batchSize));
+        LocalDateTime leaseExpiry = LocalDateTime.now().plus(claimLease);
+        due.forEach(email -> email.setNextAttemptAt(leaseExpiry));
+        return due;
+    }
+
+    // failures by outbox id; runs outside any transaction so no connection or row lock waits on SMTP
+    private Map<Integer, Exception> deliver(List<OutboxEmail> claimed) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        Map<MimeMessage, OutboxEmail> messages = new IdentityHashMap<>();
+        for (OutboxEmail email : claimed) {
+            try {
+                messages.put(toMessage(email), email);
+            } catch (MessagingException e) {
+                failures.put(email.getId(), e);
+            }
+        }
+        send(messages).forEach((message, failure) -> failures.put(messages.get(message).getId(), failure));
+        return failures;
+    }
+
+    private void recordResults(List<OutboxEmail> claimed, Map<Integer, Exception> failures) {
+        List<Integer> delivered = claimed.stream()
+                .map(OutboxEmail::getId)
+                .filter(id -> !failures.containsKey(id))
+                .toList();
+        if (!delivered.isEmpty()) {
+            outboxEmailRepo.deleteSent(delivered);
+            sent.increment(delivered.size());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxEmailRepo.findAllById(failures.keySet())
+                .forEach(email -> reschedule(email, failures.get(email.getId()), now));
+    }
+
+    // failures by message; a lost connection or failed login fails every message of the batch
+    private Map<Object, Exception> send(Map<MimeMessage, OutboxEmail> messages) {
+        if (messages.isEmpty()) {
+            return Map.of();
+        }
+        MimeMessage[] batch = messages.keySet().toArray(MimeMessage[]::new);
+        try {
+            batchTimer.record(() -> mailSender.send(batch));
+            return Map.of();
+        } catch (MailSendException e) {
+            if (!e.getFailedMessages().isEmpty()) {
+                return e.getFailedMessages();
+            }
+            return allFailed(batch, e);
+        } catch (MailException e) {
+            return allFailed(batch, e);
+        }
+    }
+
+    private static Map<Object, Exception> allFailed(MimeMessage[] batch, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (MimeMessage message : batch) {
+            failures.put(message, e);
+        }
+        return failures;
+    }
+
+    private void reschedule(OutboxEmail email, Exception failure, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(String.valueOf(failure.getMessage())));
+        if (attempts >= maxAttempts) {
+            email.setStatus(OutboxStatus.FAILED);
+            failed.increment();
+            log.error("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), attempts, failure);
+            return;
+        }
+        email.setNextAttemptAt(now.plus(backoff(attempts)));
+        retried.increment();
+        log.warn("Email {} failed (attempt {}), retrying at {}: {}", email.getId(), attempts, email.getNextAttemptAt(), failure.getMessage());
+    }
+
+    // initial, 2x, 4x ... capped at max-backoff
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private MimeMessage toMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, MimeMessageHelper.MULTIPART_MODE_MIXED, UTF_8.name());
+        helper.setFrom(from);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        return message;
+    }
+
+    private void refreshBacklog() {
+        backlog.set(outboxEmailRepo.countPending());
+        LocalDateTime oldest = outboxEmailRepo.findOldestPendingCreatedAt();
+        oldestPendingSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()));
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
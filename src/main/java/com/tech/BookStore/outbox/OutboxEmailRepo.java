@@ -0,0 +1,50 @@
+package com.tech.BookStore.outbox;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEmailRepo extends JpaRepository<OutboxEmail, Integer> {
+
+    // FOR UPDATE SKIP LOCKED: concurrent dispatchers (other nodes) claim disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT email
+        FROM OutboxEmail email
+        WHERE email.status = com.tech.BookStore.outbox.OutboxStatus.PENDING
+        AND email.nextAttemptAt <= :now
+        ORDER BY email.id
+""")
+    List<OutboxEmail> lockDue(LocalDateTime now, Limit limit);
+
+    @Query("""
+        SELECT COUNT(email)
+        FROM OutboxEmail email
+        WHERE email.status = com.tech.BookStore.outbox.OutboxStatus.PENDING
+""")
+    long countPending();
+
+    @Query("""
+        SELECT MIN(email.createdAt)
+        FROM OutboxEmail email
+        WHERE email.status = com.tech.BookStore.outbox.OutboxStatus.PENDING
+""")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    @Modifying
+    @Query("""
+        DELETE FROM OutboxEmail email
+        WHERE email.id IN :ids
+""")
+    int deleteSent(Collection<Integer> ids);
+}
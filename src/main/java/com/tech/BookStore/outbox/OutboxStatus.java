@@ -0,0 +1,7 @@
+package com.tech.BookStore.outbox;
+
+public enum OutboxStatus {
+    PENDING,
+    // gave up after the configured number of attempts, kept for inspection
+    FAILED
+}
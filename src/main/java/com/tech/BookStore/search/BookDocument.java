@@ -0,0 +1,38 @@
+package com.tech.BookStore.search;
+
+import com.tech.BookStore.book.Book;
+
+import java.time.LocalDateTime;
+
+/**
+ * The slice of a {@link Book} the search and suggestion indexes need, copied out of the entity so it can be
+ * indexed after the persistence context is gone.
+ */
+public record BookDocument(
+        Integer id,
+        Integer ownerId,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        boolean archived,
+        boolean shareable,
+        int ratingCount,
+        LocalDateTime lastModifiedDate
+) {
+
+    public static BookDocument of(Book book) {
+        return new BookDocument(
+                book.getId(),
+                book.getOwner() == null ? null : book.getOwner().getId(),
+                book.getTitle(),
+                book.getAuthorName(),
+                book.getIsbn(),
+                book.getSynopsis(),
+                book.isArchived(),
+                book.isShareable(),
+                book.getRatingCount(),
+                book.getLastModifiedDate()
+        );
+    }
+}
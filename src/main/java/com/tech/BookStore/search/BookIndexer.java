@@ -0,0 +1,66 @@
+package com.tech.BookStore.search;
+
+import com.tech.BookStore.book.Book;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Single entry point for keeping the in-memory indexes in step with book writes.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookIndexer {
+
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestIndex bookSuggestIndex;
+
+    /**
+     * Indexes the book now, or after the surrounding transaction commits so a rollback
+     * never leaves the indexes ahead of the database.
+     */
+    public void indexAfterCommit(Book book) {
+        BookDocument document = BookDocument.of(book);
+        afterCommit(() -> index(document));
+    }
+
+    /**
+     * Status-only variant for the single-statement flag updates, which never load the book.
+     * A null flag was not changed.
+     */
+    public void updateStatusAfterCommit(Integer bookId, Boolean shareable, Boolean archived, LocalDateTime modifiedAt) {
+        updateStatusAfterCommit(List.of(bookId), shareable, archived, modifiedAt);
+    }
+
+    public void updateStatusAfterCommit(Collection<Integer> bookIds, Boolean shareable, Boolean archived, LocalDateTime modifiedAt) {
+        afterCommit(() -> {
+            for (Integer bookId : bookIds) {
+                bookSearchIndex.updateStatus(bookId, shareable, archived, modifiedAt);
+                bookSuggestIndex.updateStatus(bookId, shareable, archived, modifiedAt);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private void index(BookDocument document) {
+        bookSearchIndex.index(document);
+        bookSuggestIndex.index(document);
+    }
+}
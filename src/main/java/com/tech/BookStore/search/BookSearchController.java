@@ -0,0 +1,45 @@
+package com.tech.BookStore.search;
+
+import com.tech.BookStore.book.BookResponse;
+import com.tech.BookStore.book.PageResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("books")
+@RequiredArgsConstructor
+@Tag(name = "Book")
+public class BookSearchController {
+    private final BookSearchService bookSearchService;
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<BookResponse>> searchBooks(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "shareable",required = false) Boolean shareable,
+            @RequestParam(name = "archived",required = false) Boolean archived,
+            @RequestParam(name = "owner",required = false) Integer ownerId,
+            @RequestParam(name = "page",defaultValue = "0",required = false) int page,
+            @RequestParam(name = "size",defaultValue = "10",required = false) int size,
+            Authentication connectedUser
+    )
+    {
+        return ResponseEntity.ok(bookSearchService.search(query,shareable,archived,ownerId,page,size,connectedUser));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggestBooks(
+            @RequestParam(name = "prefix") String prefix,
+            @RequestParam(name = "limit",defaultValue = "10",required = false) int limit
+    )
+    {
+        return ResponseEntity.ok(bookSearchService.suggest(prefix,limit));
+    }
+}
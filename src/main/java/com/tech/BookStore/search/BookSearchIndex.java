@@ -0,0 +1,214 @@
+package com.tech.BookStore.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over title, author, ISBN and synopsis, ranked with BM25F
+ * (per-field weights and length normalisation, one saturation over the weighted sum).
+ * Searches share a read lock; indexing a book takes the write lock only for the map updates,
+ * the tokenizing is done before.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Comparator<Map.Entry<Integer, Double>> BY_SCORE =
+            Map.Entry.<Integer, Double>comparingByValue()
+                    .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, IndexedBook> documents = new HashMap<>();
+    // term -> book id -> frequency per field
+    private final Map<String, Map<Integer, int[]>> postings = new HashMap<>();
+    private final long[] totalFieldLengths = new long[SearchField.FIELDS.length];
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("book.search.documents", this, index -> index.size(documents))
+                .register(meterRegistry);
+        Gauge.builder("book.search.terms", this, index -> index.size(postings))
+                .register(meterRegistry);
+    }
+
+    public void index(BookDocument document) {
+        IndexedBook book = analyze(document);
+        lock.writeLock().lock();
+        try {
+            IndexedBook existing = documents.get(book.id);
+            // the startup build may read a row that a request has already re-indexed
+            if (existing != null) {
+                if (existing.isNewerThan(book)) {
+                    return;
+                }
+                unlink(existing);
+            }
+            link(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a status change in place; the text is unchanged so no postings move. A null flag
+     * keeps its current value.
+     */
+    public void updateStatus(Integer bookId, Boolean shareable, Boolean archived, LocalDateTime modifiedAt) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook existing = documents.get(bookId);
+            if (existing != null) {
+                existing.updateStatus(shareable, archived, modifiedAt);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer bookId) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook existing = documents.get(bookId);
+            if (existing != null) {
+                unlink(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchHits search(String query, SearchFilter filter, int offset, int limit) {
+        Collection<String> terms = new LinkedHashSet<>(Tokenizer.tokens(query));
+        Map<Integer, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (terms.isEmpty() || documentCount == 0) {
+                return new SearchHits(0, List.of());
+            }
+            double[] averageLengths = new double[SearchField.FIELDS.length];
+            for (int f = 0; f < averageLengths.length; f++) {
+                averageLengths[f] = (double) totalFieldLengths[f] / documentCount;
+            }
+            for (String term : terms) {
+                Map<Integer, int[]> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<Integer, int[]> entry : posting.entrySet()) {
+                    IndexedBook book = documents.get(entry.getKey());
+                    if (!filter.matches(book)) {
+                        continue;
+                    }
+                    double tf = weightedTermFrequency(entry.getValue(), book.fieldLengths, averageLengths);
+                    scores.merge(book.id, idf * tf / (K1 + tf), Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new SearchHits(scores.size(), top(scores, offset, limit));
+    }
+
+    private double weightedTermFrequency(int[] frequencies, int[] fieldLengths, double[] averageLengths) {
+        double tf = 0;
+        for (int f = 0; f < frequencies.length; f++) {
+            if (frequencies[f] > 0) {
+                double norm = 1 - B + B * fieldLengths[f] / averageLengths[f];
+                tf += SearchField.FIELDS[f].weight * frequencies[f] / norm;
+            }
+        }
+        return tf;
+    }
+
+    // bounded min-heap, so a broad query does not sort every matching book
+    private List<Integer> top(Map<Integer, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        if (wanted <= 0 || offset >= scores.size()) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(Math.min(wanted, scores.size()), BY_SCORE);
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            if (heap.size() < wanted) {
+                heap.add(entry);
+            } else if (BY_SCORE.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().getKey());
+        }
+        List<Integer> page = new ArrayList<>(limit);
+        for (int i = ranked.size() - 1 - offset; i >= 0 && page.size() < limit; i--) {
+            page.add(ranked.get(i));
+        }
+        return page;
+    }
+
+    private IndexedBook analyze(BookDocument document) {
+        int[] fieldLengths = new int[SearchField.FIELDS.length];
+        Map<String, int[]> termFrequencies = new HashMap<>();
+        for (SearchField field : SearchField.FIELDS) {
+            List<String> tokens = Tokenizer.tokens(field.extractor.apply(document));
+            fieldLengths[field.ordinal()] = tokens.size();
+            for (String token : tokens) {
+                termFrequencies.computeIfAbsent(token, t -> new int[SearchField.FIELDS.length])[field.ordinal()]++;
+            }
+        }
+        return new IndexedBook(document, fieldLengths, termFrequencies);
+    }
+
+    private void link(IndexedBook book) {
+        documents.put(book.id, book);
+        for (int f = 0; f < totalFieldLengths.length; f++) {
+            totalFieldLengths[f] += book.fieldLengths[f];
+        }
+        book.termFrequencies.forEach((term, frequencies) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(book.id, frequencies));
+    }
+
+    private void unlink(IndexedBook book) {
+        documents.remove(book.id);
+        for (int f = 0; f < totalFieldLengths.length; f++) {
+            totalFieldLengths[f] -= book.fieldLengths[f];
+        }
+        for (String term : book.termFrequencies.keySet()) {
+            Map<Integer, int[]> posting = postings.get(term);
+            posting.remove(book.id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private int size(Map<?, ?> map) {
+        lock.readLock().lock();
+        try {
+            return map.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.tech.BookStore.search;
+
+import com.tech.BookStore.book.Book;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+public interface BookSearchRepo extends Repository<Book, Integer> {
+
+    @Query("""
+        SELECT new com.tech.BookStore.search.BookDocument(
+            book.id, book.owner.id, book.title, book.authorName, book.isbn, book.synopsis,
+            book.archived, book.shareable, book.ratingCount, book.lastModifiedDate)
+        FROM Book book
+        WHERE book.id > :afterId
+        ORDER BY book.id
+""")
+    List<BookDocument> findDocumentsAfter(Integer afterId, Limit limit);
+}
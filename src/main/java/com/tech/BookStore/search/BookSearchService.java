@@ -0,0 +1,94 @@
+package com.tech.BookStore.search;
+
+import com.tech.BookStore.book.Book;
+import com.tech.BookStore.book.BookMapper;
+import com.tech.BookStore.book.BookRepo;
+import com.tech.BookStore.book.BookResponse;
+import com.tech.BookStore.book.PageResponse;
+import com.tech.BookStore.exception.OperationNotPermittedException;
+import com.tech.BookStore.user.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookSearchService {
+
+    private static final int BUILD_BATCH = 1000;
+
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestIndex bookSuggestIndex;
+    private final BookSearchRepo bookSearchRepo;
+    private final BookRepo bookRepo;
+    private final BookMapper bookMapper;
+
+    // Books saved while this runs are indexed by BookService as well; the index keeps the newer version.
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long started = System.nanoTime();
+        int indexed = 0;
+        int afterId = 0;
+        List<BookDocument> documents;
+        do {
+            documents = bookSearchRepo.findDocumentsAfter(afterId, Limit.of(BUILD_BATCH));
+            for (BookDocument document : documents) {
+                bookSearchIndex.index(document);
+                afterId = document.id();
+            }
+            indexed += documents.size();
+        } while (documents.size() == BUILD_BATCH);
+        log.info("Indexed {} books for search in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public PageResponse<BookResponse> search(String query, Boolean shareable, Boolean archived, Integer ownerId,
+                                             int page, int size, Authentication connectedUser) {
+        if (query == null || query.isBlank()) {
+            throw new OperationNotPermittedException("The search query must not be empty");
+        }
+        if (page < 0 || size < 1) {
+            throw new OperationNotPermittedException("Invalid page request");
+        }
+        UserPrincipal user = ((UserPrincipal) connectedUser.getPrincipal());
+        SearchFilter filter = new SearchFilter(user.getId(), shareable, archived, ownerId);
+        SearchHits hits = bookSearchIndex.search(query, filter, page * size, size);
+
+        // one batched lookup (mostly second-level cache hits), then back into ranking order
+        Map<Integer, Book> books = bookRepo.findAllById(hits.bookIds()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<BookResponse> content = hits.bookIds().stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(bookMapper::toBookResponse)
+                .toList();
+        int totalPages = (int) ((hits.total() + size - 1) / size);
+        return PageResponse.<BookResponse>builder()
+                .content(content)
+                .number(page)
+                .size(size)
+                .totalElements(hits.total())
+                .totalPage(totalPages)
+                .first(page == 0)
+                .last(page >= totalPages - 1)
+                .hasNext(page < totalPages - 1)
+                .build();
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || limit < 1) {
+            return List.of();
+        }
+        return bookSuggestIndex.suggest(prefix, limit);
+    }
+}
@@ -0,0 +1,145 @@
+package com.tech.BookStore.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Type-ahead over titles and author names, answered from memory only. Book writes are applied
+ * incrementally; a periodic rebuild from the database (which also picks up rating changes) is
+ * built off to the side and swapped in, replaying whatever was indexed while it ran.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSuggestIndex {
+
+    private static final int BUILD_BATCH = 1000;
+
+    private final BookSearchRepo bookSearchRepo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.search.suggest.top-k:10}")
+    private int topK;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile SuggestionIndex current;
+    // updates that arrive while a rebuild is reading the database, replayed onto the new index
+    private List<Consumer<SuggestionIndex>> updatesDuringRebuild;
+
+    @PostConstruct
+    void init() {
+        current = new SuggestionIndex(topK);
+        Gauge.builder("book.suggest.memory", this, BookSuggestIndex::estimatedBytes)
+                .description("Estimated heap used by the suggestion trie")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("book.suggest.entries", this, index -> index.read(SuggestionIndex::size))
+                .register(meterRegistry);
+    }
+
+    public void index(BookDocument document) {
+        apply(index -> index.index(document));
+    }
+
+    public void updateStatus(Integer bookId, Boolean shareable, Boolean archived, LocalDateTime modifiedAt) {
+        apply(index -> index.updateStatus(bookId, shareable, archived, modifiedAt));
+    }
+
+    private void apply(Consumer<SuggestionIndex> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(current);
+            if (updatesDuringRebuild != null) {
+                updatesDuringRebuild.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return current.lookup(prefix, Math.min(limit, topK)).stream()
+                    .map(Suggestion::toResponse)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${application.search.suggest.rebuild-interval:PT15M}",
+            fixedDelayString = "${application.search.suggest.rebuild-interval:PT15M}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            updatesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        SuggestionIndex rebuilt = new SuggestionIndex(topK);
+        try {
+            int afterId = 0;
+            List<BookDocument> documents;
+            do {
+                documents = bookSearchRepo.findDocumentsAfter(afterId, Limit.of(BUILD_BATCH));
+                for (BookDocument document : documents) {
+                    rebuilt.index(document);
+                    afterId = document.id();
+                }
+            } while (documents.size() == BUILD_BATCH);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                updatesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            updatesDuringRebuild.forEach(update -> update.accept(rebuilt));
+            updatesDuringRebuild = null;
+            current = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Rebuilt {} suggestions in {} ms", rebuilt.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private double estimatedBytes() {
+        return read(SuggestionIndex::estimatedBytes);
+    }
+
+    private <T extends Number> double read(Function<SuggestionIndex, T> metric) {
+        lock.readLock().lock();
+        try {
+            return metric.apply(current).doubleValue();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
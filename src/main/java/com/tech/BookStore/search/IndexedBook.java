@@ -0,0 +1,47 @@
+package com.tech.BookStore.search;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * What the index keeps per book: the filter attributes, per-field lengths for length
+ * normalisation and the per-field term frequencies needed to take the book out again.
+ */
+final class IndexedBook {
+
+    final Integer id;
+    final Integer ownerId;
+    // status flags change in place under the index's write lock
+    boolean archived;
+    boolean shareable;
+    LocalDateTime version;
+    final int[] fieldLengths;
+    final Map<String, int[]> termFrequencies;
+
+    IndexedBook(BookDocument document, int[] fieldLengths, Map<String, int[]> termFrequencies) {
+        this.id = document.id();
+        this.ownerId = document.ownerId();
+        this.archived = document.archived();
+        this.shareable = document.shareable();
+        this.version = document.lastModifiedDate();
+        this.fieldLengths = fieldLengths;
+        this.termFrequencies = termFrequencies;
+    }
+
+    void updateStatus(Boolean shareable, Boolean archived, LocalDateTime modifiedAt) {
+        if (version != null && modifiedAt != null && version.isAfter(modifiedAt)) {
+            return;
+        }
+        if (shareable != null) {
+            this.shareable = shareable;
+        }
+        if (archived != null) {
+            this.archived = archived;
+        }
+        version = modifiedAt;
+    }
+
+    boolean isNewerThan(IndexedBook other) {
+        return version != null && other.version != null && version.isAfter(other.version);
+    }
+}
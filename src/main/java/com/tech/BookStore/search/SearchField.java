@@ -0,0 +1,24 @@
+package com.tech.BookStore.search;
+
+import java.util.function.Function;
+
+/**
+ * Indexed fields and their BM25F weights: a hit in the title counts three times a hit in the synopsis.
+ */
+enum SearchField {
+
+    TITLE(3.0, BookDocument::title),
+    AUTHOR(2.0, BookDocument::authorName),
+    ISBN(4.0, BookDocument::isbn),
+    SYNOPSIS(1.0, BookDocument::synopsis);
+
+    static final SearchField[] FIELDS = values();
+
+    final double weight;
+    final Function<BookDocument, String> extractor;
+
+    SearchField(double weight, Function<BookDocument, String> extractor) {
+        this.weight = weight;
+        this.extractor = extractor;
+    }
+}
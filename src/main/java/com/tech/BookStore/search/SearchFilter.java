@@ -0,0 +1,25 @@
+package com.tech.BookStore.search;
+
+import java.util.Objects;
+
+/**
+ * Restricts hits to what the viewer may see (their own books, or shareable and not archived
+ * books of others) and then to the optional shareable/archived/owner filters of the request.
+ */
+public record SearchFilter(
+        Integer viewerId,
+        Boolean shareable,
+        Boolean archived,
+        Integer ownerId
+) {
+
+    boolean matches(IndexedBook book) {
+        boolean ownBook = Objects.equals(book.ownerId, viewerId);
+        if (!ownBook && (book.archived || !book.shareable)) {
+            return false;
+        }
+        return (shareable == null || shareable == book.shareable)
+                && (archived == null || archived == book.archived)
+                && (ownerId == null || Objects.equals(ownerId, book.ownerId));
+    }
+}
@@ -0,0 +1,9 @@
+package com.tech.BookStore.search;
+
+import java.util.List;
+
+public record SearchHits(
+        long total,
+        List<Integer> bookIds
+) {
+}
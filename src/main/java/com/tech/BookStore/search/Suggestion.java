@@ -0,0 +1,30 @@
+package com.tech.BookStore.search;
+
+import java.util.Comparator;
+
+/**
+ * One distinct title or author name. Its popularity is the sum over the books carrying it of
+ * (ratings + 1), so an unrated book still counts once.
+ */
+final class Suggestion {
+
+    static final Comparator<Suggestion> BY_POPULARITY = Comparator
+            .comparingLong((Suggestion suggestion) -> suggestion.popularity).reversed()
+            .thenComparing(suggestion -> suggestion.key);
+
+    final SuggestionType type;
+    final String key;
+    final String text;
+    long popularity;
+    int books;
+
+    Suggestion(SuggestionType type, String key, String text) {
+        this.type = type;
+        this.key = key;
+        this.text = text;
+    }
+
+    SuggestionResponse toResponse() {
+        return new SuggestionResponse(text, type, books);
+    }
+}
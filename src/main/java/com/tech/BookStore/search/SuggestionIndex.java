@@ -0,0 +1,141 @@
+package com.tech.BookStore.search;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The suggestions of the displayable books (shareable, not archived): every distinct title and
+ * author name is reachable from the start of each of its words. Hidden books are remembered too,
+ * so a status change can be applied without reloading the book. Not thread-safe.
+ */
+final class SuggestionIndex {
+
+    private final SuggestionTrie trie;
+    private final Map<Integer, Contribution> books = new HashMap<>();
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+
+    SuggestionIndex(int topK) {
+        this.trie = new SuggestionTrie(topK);
+    }
+
+    void index(BookDocument document) {
+        Contribution existing = books.get(document.id());
+        if (existing != null && existing.isNewerThan(document.lastModifiedDate())) {
+            return;
+        }
+        replace(document.id(), existing, new Contribution(document.title(), document.authorName(),
+                document.ratingCount() + 1L, document.shareable(), document.archived(),
+                document.lastModifiedDate()));
+    }
+
+    // a null flag keeps its current value
+    void updateStatus(Integer bookId, Boolean shareable, Boolean archived, LocalDateTime modifiedAt) {
+        Contribution existing = books.get(bookId);
+        if (existing == null || existing.isNewerThan(modifiedAt)) {
+            return;
+        }
+        replace(bookId, existing, new Contribution(existing.title(), existing.authorName(), existing.popularity(),
+                shareable != null ? shareable : existing.shareable(),
+                archived != null ? archived : existing.archived(),
+                modifiedAt));
+    }
+
+    private void replace(Integer bookId, Contribution existing, Contribution replacement) {
+        if (existing != null && existing.displayable()) {
+            withdraw(existing);
+        }
+        if (replacement.displayable()) {
+            contribute(replacement);
+        }
+        books.put(bookId, replacement);
+    }
+
+    List<Suggestion> lookup(String prefix, int limit) {
+        return trie.lookup(Tokenizer.normalize(prefix), limit);
+    }
+
+    int size() {
+        return suggestions.size();
+    }
+
+    long estimatedBytes() {
+        // trie nodes plus per-suggestion object, text and map entry
+        long bytes = trie.estimatedBytes();
+        for (Suggestion suggestion : suggestions.values()) {
+            bytes += 48 + 2L * (40 + suggestion.text.length()) + 48;
+        }
+        return bytes + 64L * books.size();
+    }
+
+    private void contribute(Contribution contribution) {
+        adjust(SuggestionType.TITLE, contribution.title(), contribution.popularity(), 1);
+        adjust(SuggestionType.AUTHOR, contribution.authorName(), contribution.popularity(), 1);
+    }
+
+    private void withdraw(Contribution contribution) {
+        adjust(SuggestionType.TITLE, contribution.title(), -contribution.popularity(), -1);
+        adjust(SuggestionType.AUTHOR, contribution.authorName(), -contribution.popularity(), -1);
+    }
+
+    // a suggestion's rank changes, so it leaves the trie and comes back under its new popularity
+    private void adjust(SuggestionType type, String text, long popularity, int books) {
+        String normalized = Tokenizer.normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        String id = type + ":" + normalized;
+        Suggestion suggestion = suggestions.get(id);
+        if (suggestion == null) {
+            if (books < 0) {
+                return;
+            }
+            suggestion = new Suggestion(type, normalized, text.strip());
+            suggestions.put(id, suggestion);
+        } else {
+            for (String key : keys(suggestion)) {
+                trie.remove(key, suggestion);
+            }
+        }
+        suggestion.popularity += popularity;
+        suggestion.books += books;
+        if (suggestion.books <= 0) {
+            suggestions.remove(id);
+            return;
+        }
+        for (String key : keys(suggestion)) {
+            trie.insert(key, suggestion);
+        }
+    }
+
+    // the whole phrase and its tail from every word on, so "hob" finds "the hobbit"
+    private List<String> keys(Suggestion suggestion) {
+        String key = suggestion.key;
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            keys.add(key.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private record Contribution(
+            String title,
+            String authorName,
+            long popularity,
+            boolean shareable,
+            boolean archived,
+            LocalDateTime version
+    ) {
+
+        boolean displayable() {
+            return shareable && !archived;
+        }
+
+        boolean isNewerThan(LocalDateTime other) {
+            return version != null && other != null && version.isAfter(other);
+        }
+    }
+}
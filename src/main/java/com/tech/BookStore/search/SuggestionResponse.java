@@ -0,0 +1,8 @@
+package com.tech.BookStore.search;
+
+public record SuggestionResponse(
+        String text,
+        SuggestionType type,
+        int books
+) {
+}
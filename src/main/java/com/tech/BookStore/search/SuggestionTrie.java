@@ -0,0 +1,256 @@
+package com.tech.BookStore.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Radix trie (single-child chains collapsed into one edge label) in which every node caches
+ * the top-K suggestions of its subtree, so a lookup is a walk down the prefix and nothing more.
+ * Inserting or removing a key recomputes those caches only along the touched path.
+ * Not thread-safe; {@link BookSuggestIndex} guards it.
+ */
+final class SuggestionTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    // rough HotSpot sizes with compressed oops, for the memory gauge
+    private static final long NODE_BYTES = 32;
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long REFERENCE_BYTES = 4;
+    private static final long STRING_BYTES = 24 + ARRAY_HEADER_BYTES;
+
+    private final int topK;
+    private final Node root = new Node("");
+
+    SuggestionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    List<Suggestion> lookup(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.child(prefix.charAt(i));
+            if (child == null) {
+                return List.of();
+            }
+            String label = child.label;
+            int remaining = prefix.length() - i;
+            if (remaining < label.length()) {
+                if (!label.startsWith(prefix.substring(i))) {
+                    return List.of();
+                }
+            } else if (!prefix.startsWith(label, i)) {
+                return List.of();
+            }
+            i += label.length();
+            node = child;
+        }
+        return Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length));
+    }
+
+    void insert(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.addChild(child);
+                node = child;
+                path.add(node);
+                i = key.length();
+                break;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common));
+                node.replaceChild(child, middle);
+                child.label = child.label.substring(common);
+                middle.addChild(child);
+                child = middle;
+            }
+            i += common;
+            node = child;
+            path.add(node);
+        }
+        if (!contains(node.terminals, suggestion)) {
+            node.terminals = append(node.terminals, suggestion);
+        }
+        refresh(path);
+    }
+
+    void remove(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        node.terminals = without(node.terminals, suggestion);
+        compact(path);
+        refresh(path);
+    }
+
+    long estimatedBytes() {
+        return estimatedBytes(root);
+    }
+
+    private long estimatedBytes(Node node) {
+        long bytes = NODE_BYTES + STRING_BYTES + node.label.length()
+                + 3 * ARRAY_HEADER_BYTES
+                + REFERENCE_BYTES * (node.children.length + node.terminals.length + node.top.length);
+        for (Node child : node.children) {
+            bytes += estimatedBytes(child);
+        }
+        return bytes;
+    }
+
+    // drop nodes left without terminals or children, and merge pass-through nodes into their only child
+    private void compact(List<Node> path) {
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node node = path.get(depth);
+            Node parent = path.get(depth - 1);
+            if (node.terminals.length > 0) {
+                continue;
+            }
+            if (node.children.length == 0) {
+                parent.removeChild(node);
+                path.remove(depth);
+            } else if (node.children.length == 1) {
+                Node only = node.children[0];
+                only.label = node.label + only.label;
+                parent.replaceChild(node, only);
+                path.set(depth, only);
+            }
+        }
+    }
+
+    private void refresh(List<Node> path) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            node.top = top(node);
+        }
+    }
+
+    private Suggestion[] top(Node node) {
+        List<Suggestion> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(Suggestion.BY_POPULARITY);
+        List<Suggestion> top = new ArrayList<>(topK);
+        for (Suggestion candidate : candidates) {
+            // the same suggestion is reachable through several keys (one per word)
+            if (top.size() == topK) {
+                break;
+            }
+            if (!top.contains(candidate)) {
+                top.add(candidate);
+            }
+        }
+        return top.isEmpty() ? NO_SUGGESTIONS : top.toArray(NO_SUGGESTIONS);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean contains(Suggestion[] suggestions, Suggestion suggestion) {
+        for (Suggestion existing : suggestions) {
+            if (existing == suggestion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Suggestion[] append(Suggestion[] suggestions, Suggestion suggestion) {
+        Suggestion[] appended = Arrays.copyOf(suggestions, suggestions.length + 1);
+        appended[suggestions.length] = suggestion;
+        return appended;
+    }
+
+    private static Suggestion[] without(Suggestion[] suggestions, Suggestion suggestion) {
+        if (!contains(suggestions, suggestion)) {
+            return suggestions;
+        }
+        return suggestions.length == 1
+                ? NO_SUGGESTIONS
+                : Arrays.stream(suggestions).filter(existing -> existing != suggestion).toArray(Suggestion[]::new);
+    }
+
+    private static final class Node {
+
+        String label;
+        // sorted by the first character of their label; arrays keep small fan-outs compact
+        Node[] children = NO_CHILDREN;
+        Suggestion[] terminals = NO_SUGGESTIONS;
+        Suggestion[] top = NO_SUGGESTIONS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            char first = child.label.charAt(0);
+            int position = 0;
+            while (position < children.length && children[position].label.charAt(0) < first) {
+                position++;
+            }
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(children, position, grown, position + 1, children.length - position);
+            children = grown;
+        }
+
+        void replaceChild(Node existing, Node replacement) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == existing) {
+                    children[i] = replacement;
+                    return;
+                }
+            }
+        }
+
+        void removeChild(Node child) {
+            children = children.length == 1
+                    ? NO_CHILDREN
+                    : Arrays.stream(children).filter(existing -> existing != child).toArray(Node[]::new);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.tech.BookStore.search;
+
+public enum SuggestionType {
+    TITLE,
+    AUTHOR
+}
@@ -0,0 +1,95 @@
+package com.tech.BookStore.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into lower-case, accent-free terms. Hyphenated words are indexed both as their
+ * parts and joined, so "spider-man", "spider man" and "spiderman" all match, and an ISBN
+ * typed with or without dashes finds the same book.
+ */
+final class Tokenizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with"
+    );
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Lower-case, accent-free form of a whole phrase with every run of non-alphanumerics
+     * collapsed to one space, e.g. "Harry Potter & the Philosopher's Stone" becomes
+     * "harry potter the philosopher s stone".
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            } else if (!normalized.isEmpty() && normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        int end = normalized.length();
+        return end > 0 && normalized.charAt(end - 1) == ' ' ? normalized.substring(0, end - 1) : normalized.toString();
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        StringBuilder part = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        boolean hyphenated = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                part.append(c);
+                word.append(c);
+            } else if (c == '-' && !part.isEmpty()) {
+                add(tokens, part);
+                hyphenated = true;
+            } else {
+                add(tokens, part);
+                if (hyphenated) {
+                    add(tokens, word);
+                }
+                word.setLength(0);
+                hyphenated = false;
+            }
+        }
+        add(tokens, part);
+        if (hyphenated) {
+            add(tokens, word);
+        }
+        return tokens;
+    }
+
+    private static void add(List<String> tokens, StringBuilder buffer) {
+        if (!buffer.isEmpty()) {
+            String token = buffer.toString();
+            if (!STOP_WORDS.contains(token) && (token.length() > 1 || Character.isDigit(token.charAt(0)))) {
+                tokens.add(token);
+            }
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.tech.BookStore.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Short-lived, size-bounded cache in front of {@link userDetailsServiceImpl} for deployments
+ * that keep database-backed principals. Entries are dropped by {@link UserCacheInvalidator}
+ * whenever a user row or its roles change.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "application.security.user-cache.enabled", havingValue = "true")
+public class CachingUserDetailsService implements UserDetailsService {
+
+    private final userDetailsServiceImpl delegate;
+    private final Cache<String, UserDetails> users;
+
+    public CachingUserDetailsService(
+            userDetailsServiceImpl delegate,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.user-cache.max-size:10000}") long maxSize,
+            @Value("${application.security.user-cache.ttl:1m}") Duration ttl
+    ) {
+        this.delegate = delegate;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "security.user-details");
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String userEmail) throws UsernameNotFoundException {
+        return users.get(userEmail, delegate::loadUserByUsername);
+    }
+
+    public void evict(String userEmail) {
+        if (userEmail != null) {
+            users.invalidate(userEmail);
+        }
+    }
+}
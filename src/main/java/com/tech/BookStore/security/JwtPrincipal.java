@@ -0,0 +1,39 @@
+package com.tech.BookStore.security;
+
+import com.tech.BookStore.user.UserPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+/**
+ * Authenticated user rebuilt from JWT claims, used when
+ * application.security.jwt.stateless-principal is on.
+ */
+public record JwtPrincipal(
+        Integer id,
+        String email,
+        String fullName,
+        List<GrantedAuthority> authorities
+) implements UserDetails, UserPrincipal {
+
+    @Override
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
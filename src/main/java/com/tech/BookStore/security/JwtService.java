@@ -1,30 +1,85 @@
 package com.tech.BookStore.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tech.BookStore.user.UserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private static final String AUTHORITIES_CLAIM = "authorities";
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String FULL_NAME_CLAIM = "fullName";
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
 
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
+    @Value("${application.security.jwt.cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    @Value("${application.security.jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${application.security.jwt.cache.ttl:5m}")
+    private Duration cacheTtl;
+
+    private Key signInKey;
+    private JwtParser jwtParser;
+    // Claims of tokens whose signature was already verified, keyed by the SHA-256 of the token.
+    private Cache<String, Claims> verifiedTokens;
+
+    // Decode the secret and build the parser once instead of on every call
+    @PostConstruct
+    void init() {
+        signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+        if (cacheEnabled) {
+            verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxSize)
+                    .expireAfter(new VerifiedTokenExpiry())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+        }
+    }
+
     // Extract username (subject) from token
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -36,14 +91,12 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    // Parse and extract all claims from token
+    // Parse and extract all claims from token, verifying the signature at most once per cached token
     public Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+        return verifiedTokens.get(digest(token), digest -> parse(token));
     }
 
     // Generate token with default claims
@@ -63,36 +116,90 @@ public class JwtService {
                 .map(GrantedAuthority::getAuthority)
                 .toList();
 
-        return Jwts
+        var builder = Jwts
                 .builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .claim("authorities", authorities)
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .claim(AUTHORITIES_CLAIM, authorities);
+        if (userDetails instanceof UserPrincipal principal) {
+            builder.claim(USER_ID_CLAIM, principal.getId())
+                    .claim(FULL_NAME_CLAIM, principal.fullName());
+        }
+        return builder
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Rebuild the caller from the token alone; null for tokens issued without a user id
+    public JwtPrincipal toPrincipal(Claims claims) {
+        Integer userId = claims.get(USER_ID_CLAIM, Integer.class);
+        if (userId == null) {
+            return null;
+        }
+        List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        return new JwtPrincipal(
+                userId,
+                claims.getSubject(),
+                claims.get(FULL_NAME_CLAIM, String.class),
+                authorities == null ? List.of() : authorities.stream()
+                        .<GrantedAuthority>map(authority -> new SimpleGrantedAuthority(String.valueOf(authority)))
+                        .toList()
+        );
+    }
+
     // Validate token
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
+    }
+
+    // Validate already extracted claims, so callers parse the token only once
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return (username.equals(userDetails.getUsername())) && !isTokenExpired(claims);
     }
 
     // Check if token is expired
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    private Claims parse(String token) {
+        return jwtParser
+                .parseClaimsJws(token)
+                .getBody();
     }
 
-    // Extract expiration from token
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // A cached entry never outlives the token it was verified for
+    private class VerifiedTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return cacheTtl.toNanos();
+            }
+            long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(remaining, cacheTtl.toMillis())));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
-    // Get signing key from secret
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -0,0 +1,118 @@
+package com.tech.BookStore.security;
+
+import com.tech.BookStore.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on its own pool, sized to the cores, so a login or registration burst
+ * cannot run more BCrypt computations at once than there are cores. The calling servlet thread
+ * still waits for its result, which is why the queue is kept small: at most {@code threads +
+ * queue-capacity} requests wait here, and the rest get a {@link ServiceOverloadedException} (503
+ * with Retry-After) right away, as does a hash that waits longer than {@code max-wait}.
+ * <p>
+ * Callers must not hash inside a transaction, or every waiting request also holds a pooled
+ * database connection.
+ */
+@Component
+@RequiredArgsConstructor
+public class PasswordHashingExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    // 0 means one thread per available core
+    @Value("${application.security.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${application.security.password-hashing.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${application.security.password-hashing.max-wait:PT5S}")
+    private Duration maxWait;
+
+    @Value("${application.security.password-hashing.retry-after:PT2S}")
+    private Duration retryAfter;
+
+    ThreadPoolExecutor executor;
+    private Timer queueWait;
+    private Timer hashTime;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a thread")
+                .register(meterRegistry);
+        queueWait = Timer.builder("password.hashing.queue.wait")
+                .description("Time a password hash waited for a thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        hashTime = Timer.builder("password.hashing.duration")
+                .description("Time spent computing a password hash")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public <T> T run(Supplier<T> hashing) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return hashTime.record(hashing);
+            });
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+        try {
+            return future.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException("Too many sign-in requests, please retry shortly", retryAfter);
+    }
+}
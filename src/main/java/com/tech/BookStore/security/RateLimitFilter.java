@@ -0,0 +1,87 @@
+package com.tech.BookStore.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tech.BookStore.handler.ExceptionResponse;
+import com.tech.BookStore.user.UserPrincipal;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.tech.BookStore.handler.BusinessErrorCodes.TOO_MANY_REQUESTS;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+
+/**
+ * Applies the {@link RateLimiter} policies. Runs right after {@link JwtFilter} so per-user policies
+ * see the authenticated principal, and before authorization so anonymous floods are cut off early.
+ * Every limited response carries the RateLimit-Limit, -Remaining, -Reset and -Policy headers.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT = "RateLimit-Limit";
+    static final String REMAINING = "RateLimit-Remaining";
+    static final String RESET = "RateLimit-Reset";
+    static final String POLICY = "RateLimit-Policy";
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        // the decoded path, as Spring MVC and Security see it, so /%61uth/... cannot sidestep a policy
+        RateLimiter.Route route = rateLimiter.match(request.getMethod(),
+                UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        TokenBucket.Probe probe = route.acquire(clientKey(route.policy().key(), request), System.nanoTime());
+        response.setHeader(LIMIT, String.valueOf(probe.limit()));
+        response.setHeader(REMAINING, String.valueOf(probe.remaining()));
+        response.setHeader(RESET, String.valueOf(seconds(probe.resetNanos())));
+        response.setHeader(POLICY, probe.limit() + ";w=" + Math.max(1, route.window().toSeconds()));
+        if (probe.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setStatus(TOO_MANY_REQUESTS.getHttpStatus().value());
+        response.setHeader(RETRY_AFTER, String.valueOf(Math.max(1, seconds(probe.retryAfterNanos()))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ExceptionResponse.builder()
+                .businessErrorCode(TOO_MANY_REQUESTS.getCode())
+                .businessErrorDescription(TOO_MANY_REQUESTS.getDescription())
+                .build());
+    }
+
+    // forwarded client addresses are honoured only through server.forward-headers-strategy
+    private static Object clientKey(RateLimitProperties.Key key, HttpServletRequest request) {
+        if (key == RateLimitProperties.Key.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+                return principal.getId();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    // rounded up, so a client waiting that long always finds a token
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
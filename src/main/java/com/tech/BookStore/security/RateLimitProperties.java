@@ -0,0 +1,50 @@
+package com.tech.BookStore.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-route request budgets, e.g.
+ * <pre>
+ * application.security.rate-limit.policies[0].name=login
+ * application.security.rate-limit.policies[0].path=/auth/authentication
+ * application.security.rate-limit.policies[0].methods=POST
+ * application.security.rate-limit.policies[0].key=ip
+ * application.security.rate-limit.policies[0].capacity=10
+ * application.security.rate-limit.policies[0].refill-tokens=10
+ * application.security.rate-limit.policies[0].refill-period=PT1M
+ * </pre>
+ * The first policy whose path pattern and method match a request applies.
+ */
+@ConfigurationProperties("application.security.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        // tracked clients per policy; the least recently seen are dropped beyond that
+        @DefaultValue("100000") long maxKeys,
+        @DefaultValue List<Policy> policies
+) {
+
+    public record Policy(
+            String name,
+            // PathPattern syntax, relative to the context path
+            String path,
+            // empty means every method
+            @DefaultValue Set<String> methods,
+            @DefaultValue("ip") Key key,
+            long capacity,
+            long refillTokens,
+            Duration refillPeriod
+    ) {
+    }
+
+    public enum Key {
+        // client address as seen by the servlet container
+        IP,
+        // authenticated user id, falling back to the client address for anonymous calls
+        USER
+    }
+}
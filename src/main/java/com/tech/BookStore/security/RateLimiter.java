@@ -0,0 +1,129 @@
+package com.tech.BookStore.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Holds one token bucket per client and policy. Buckets live in a size-bounded Caffeine cache and
+ * expire once idle for as long as a full refill takes, at which point a fresh bucket is identical.
+ */
+@Component
+public class RateLimiter {
+
+    // paths reach the limiter already decoded, so segments must not be decoded a second time
+    private static final PathContainer.Options DECODED_PATH = PathContainer.Options.create('/', false);
+
+    private final boolean enabled;
+    private final List<Route> routes;
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.routes = properties.policies().stream()
+                .map(policy -> new Route(policy, properties.maxKeys(), meterRegistry))
+                .toList();
+    }
+
+    // the route limiting this request, or null when it is not limited; path is decoded and within the application
+    public Route match(String method, String path) {
+        if (!enabled || routes.isEmpty()) {
+            return null;
+        }
+        // parsing the path costs more than the bucket itself, so only do it for plausible routes
+        PathContainer pathContainer = null;
+        for (Route route : routes) {
+            if (route.accepts(method, path)) {
+                if (pathContainer == null) {
+                    pathContainer = PathContainer.parsePath(path, DECODED_PATH);
+                }
+                if (route.pattern.matches(pathContainer)) {
+                    return route;
+                }
+            }
+        }
+        return null;
+    }
+
+    public static final class Route {
+
+        private final RateLimitProperties.Policy policy;
+        private final PathPattern pattern;
+        private final Set<String> methods;
+        private final String literalPrefix;
+        private final long intervalNanos;
+        private final Cache<Object, TokenBucket> buckets;
+        private final Counter rejected;
+
+        Route(RateLimitProperties.Policy policy, long maxKeys, MeterRegistry meterRegistry) {
+            if (policy.capacity() < 1 || policy.refillTokens() < 1 || policy.refillPeriod() == null) {
+                throw new IllegalArgumentException("Rate limit policy " + policy.name() + " needs a capacity, refill-tokens and refill-period");
+            }
+            this.policy = policy;
+            this.pattern = PathPatternParser.defaultInstance.parse(policy.path());
+            this.methods = policy.methods().stream()
+                    .map(method -> method.toUpperCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+            this.literalPrefix = literalPrefix(pattern.getPatternString());
+            this.intervalNanos = Math.max(1, policy.refillPeriod().toNanos() / policy.refillTokens());
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(Math.max(intervalNanos * policy.capacity(), 1_000_000_000L)))
+                    // amortised eviction work on the request thread instead of a hop to the common pool
+                    .executor(Runnable::run)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit." + policy.name());
+            this.rejected = Counter.builder("rate.limit.rejected")
+                    .description("Requests refused by the rate limiter")
+                    .tag("policy", policy.name())
+                    .register(meterRegistry);
+        }
+
+        boolean accepts(String method, String path) {
+            return (methods.isEmpty() || methods.contains(method)) && path.startsWith(literalPrefix);
+        }
+
+        // the part of the pattern before its first variable or wildcard
+        private static String literalPrefix(String pattern) {
+            int end = pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '{' || c == '*' || c == '?') {
+                    end = i;
+                    break;
+                }
+            }
+            return pattern.substring(0, end);
+        }
+
+        public TokenBucket.Probe acquire(Object clientKey, long now) {
+            TokenBucket.Probe probe = buckets.get(clientKey, key -> new TokenBucket(policy.capacity(), intervalNanos, now))
+                    .tryConsume(now);
+            if (!probe.allowed()) {
+                rejected.increment();
+            }
+            return probe;
+        }
+
+        public RateLimitProperties.Policy policy() {
+            return policy;
+        }
+
+        // time for an empty bucket to fill up, advertised as the window of the policy
+        public Duration window() {
+            return Duration.ofNanos(intervalNanos * policy.capacity());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.tech.BookStore.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count plus a last-refill timestamp, the whole state is
+ * the single instant at which the bucket will be full again; taking a token pushes that instant one
+ * refill interval further, and the bucket is empty when it lies more than {@code capacity}
+ * intervals ahead of now. One compare-and-set per request, no lock and no background refill.
+ */
+public final class TokenBucket {
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, long intervalNanos, long now) {
+        this.capacity = capacity;
+        this.intervalNanos = intervalNanos;
+        this.burstNanos = capacity * intervalNanos;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    public Probe tryConsume(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long debt = next - now;
+            if (debt > burstNanos) {
+                long untilFull = Math.max(0, current - now);
+                return new Probe(false, capacity, 0, untilFull, debt - burstNanos);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return new Probe(true, capacity, (burstNanos - debt) / intervalNanos, debt, 0);
+            }
+        }
+    }
+
+    /**
+     * Outcome of one attempt, with what the RateLimit-* headers need: the bucket size, tokens left,
+     * time until the bucket is full again and, when refused, time until the next token.
+     */
+    public record Probe(
+            boolean allowed,
+            long limit,
+            long remaining,
+            long resetNanos,
+            long retryAfterNanos
+    ) {
+    }
+}
@@ -3,13 +3,15 @@ package com.tech.BookStore.security;
 import com.tech.BookStore.user.UserRepo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class userDetailsServiceImpl implements UserDetailsService {
+public class userDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepo userRepo;
 
@@ -18,4 +20,13 @@ public class userDetailsServiceImpl implements UserDetailsService {
     public UserDetails loadUserByUsername(String userEmail) throws UsernameNotFoundException {
         return userRepo.findByEmail(userEmail).orElseThrow(()->new UsernameNotFoundException("user not found"));
     }
+
+    // called after a successful login whose stored hash has a different BCrypt cost
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        var user = userRepo.findByEmail(userDetails.getUsername()).orElseThrow(()->new UsernameNotFoundException("user not found"));
+        user.setPassword(newPassword);
+        return userRepo.save(user);
+    }
 }
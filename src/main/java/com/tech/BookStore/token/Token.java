@@ -12,11 +12,13 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Entity
 @Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_token_token", columnNames = "token"))
 public class Token {
 
     @Id
     @GeneratedValue
     private Integer id;
+    @Column(nullable = false)
     private String token;
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
@@ -0,0 +1,86 @@
+package com.tech.BookStore.token;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes activation tokens that can no longer be used: validated ones, and expired ones once the
+ * retention has passed (kept that long so a late click still gets the "expired, new code sent"
+ * answer instead of "invalid token"). The table is walked by primary-key windows of
+ * {@code batch-size} ids, one short transaction each, so the job never holds many row locks at once.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenPurgeJob {
+
+    private final TokenRepo tokenRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.tokens.purge.batch-size:1000}")
+    private int batchSize;
+    @Value("${application.security.tokens.purge.retention:P1D}")
+    private Duration retention;
+
+    private Counter purged;
+    private Timer duration;
+
+    @PostConstruct
+    void registerMetrics() {
+        purged = Counter.builder("tokens.purged")
+                .description("Activation tokens deleted by the purge job")
+                .register(meterRegistry);
+        duration = Timer.builder("tokens.purge")
+                .description("Time spent in one purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${application.security.tokens.purge.interval:PT1H}",
+            fixedDelayString = "${application.security.tokens.purge.interval:PT1H}")
+    public void purgeOnSchedule() {
+        purge();
+    }
+
+    public PurgeResult purge() {
+        long started = System.nanoTime();
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(retention);
+        Integer minId = tokenRepo.findMinId();
+        Integer maxId = tokenRepo.findMaxId();
+        long rows = 0;
+        int batches = 0;
+        if (minId != null) {
+            for (long from = minId; from <= maxId; from += batchSize) {
+                int fromId = (int) from;
+                int toId = (int) Math.min(from + batchSize, (long) maxId + 1);
+                Integer deleted = transactionTemplate.execute(status ->
+                        tokenRepo.deletePurgeable(fromId, toId, expiredBefore));
+                rows += deleted == null ? 0 : deleted;
+                batches++;
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        purged.increment(rows);
+        duration.record(elapsed);
+        log.info("Purged {} activation tokens in {} batches, {} ms", rows, batches, elapsed.toMillis());
+        return new PurgeResult(rows, batches, elapsed);
+    }
+
+    public record PurgeResult(
+            long rows,
+            int batches,
+            Duration elapsed
+    ) {
+    }
+}
@@ -1,11 +1,32 @@
 package com.tech.BookStore.token;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface TokenRepo extends JpaRepository<Token,Integer> {
 
 
     Optional<Token> findByToken(String token);
+
+    boolean existsByToken(String token);
+
+    @Query("SELECT MIN(token.id) FROM Token token")
+    Integer findMinId();
+
+    @Query("SELECT MAX(token.id) FROM Token token")
+    Integer findMaxId();
+
+    // one bounded id window per call, so each delete touches at most batch-size rows
+    @Modifying
+    @Query("""
+        DELETE FROM Token token
+        WHERE token.id >= :fromId
+        AND token.id < :toId
+        AND (token.validateAt IS NOT NULL OR token.expiresAt < :expiredBefore)
+""")
+    int deletePurgeable(Integer fromId, Integer toId, LocalDateTime expiredBefore);
 }
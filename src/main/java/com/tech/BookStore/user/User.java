@@ -5,6 +5,8 @@ import com.tech.BookStore.history.BookTransactionHistory;
 import com.tech.BookStore.role.Role;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -26,8 +28,10 @@ import java.util.stream.Collectors;
 @Builder
 @Entity
 @Table(name = "_user")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @EntityListeners(AuditingEntityListener.class)
-public class User implements UserDetails, Principal {
+public class User implements UserDetails, Principal, UserPrincipal {
 
     @Id
     @GeneratedValue
@@ -43,6 +47,7 @@ public class User implements UserDetails, Principal {
     private boolean enabled;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     private List<Role> roles;
 
     @OneToMany(mappedBy = "owner")
@@ -0,0 +1,13 @@
+package com.tech.BookStore.user;
+
+/**
+ * What the services need to know about the caller. Implemented by the {@link User}
+ * entity and by the token-backed principal used in stateless mode, so callers
+ * never have to assume a managed entity sits in the SecurityContext.
+ */
+public interface UserPrincipal {
+
+    Integer getId();
+
+    String fullName();
+}
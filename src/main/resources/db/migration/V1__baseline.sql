@@ -0,0 +1,167 @@
+-- Baseline schema (MySQL 8, InnoDB). Ids come from Hibernate's table-backed sequences (*_seq).
+
+create table role (
+    id integer not null,
+    name varchar(255),
+    created_date datetime(6) not null,
+    last_modified_date datetime(6) not null,
+    primary key (id),
+    constraint uk_role_name unique (name)
+) engine=InnoDB;
+
+create table role_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into role_seq values (1);
+
+create table _user (
+    id integer not null,
+    first_name varchar(255),
+    last_name varchar(255),
+    date_of_birth date,
+    email varchar(255),
+    password varchar(255),
+    account_locked bit not null,
+    enabled bit not null,
+    created_date datetime(6) not null,
+    last_modified_date datetime(6) not null,
+    primary key (id),
+    constraint uk_user_email unique (email)
+) engine=InnoDB;
+
+create table _user_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into _user_seq values (1);
+
+create table _user_roles (
+    users_id integer not null,
+    roles_id integer not null,
+    constraint fk_user_roles_user foreign key (users_id) references _user (id),
+    constraint fk_user_roles_role foreign key (roles_id) references role (id)
+) engine=InnoDB;
+
+create table book (
+    id integer not null,
+    title varchar(255),
+    author_name varchar(255),
+    isbn varchar(255),
+    synopsis varchar(255),
+    book_cover varchar(255),
+    archived bit not null,
+    shareable bit not null,
+    rating_sum float(53) not null,
+    rating_count integer not null,
+    version bigint,
+    owner_id integer,
+    created_date datetime(6) not null,
+    last_modified_date datetime(6) not null,
+    created_by integer not null,
+    last_modified_by integer not null,
+    primary key (id),
+    constraint fk_book_owner foreign key (owner_id) references _user (id)
+) engine=InnoDB;
+
+create table book_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into book_seq values (1);
+
+-- findAllDisplayableBooks / findDisplayableBooksAfter
+create index idx_book_displayable on book (archived, shareable, owner_id, created_date);
+-- owner listings, and the owner side of the returned-books queries; also serves fk_book_owner
+create index idx_book_owner_created on book (owner_id, created_date);
+-- cover blob sweeper prefix lookups
+create index idx_book_cover on book (book_cover);
+
+create table book_transaction_history (
+    id integer not null,
+    user_id integer,
+    book_id integer,
+    returned bit not null,
+    return_approved bit not null,
+    -- book_id while the loan is open, NULL once the return is approved: at most one open loan per book
+    active_book_id integer generated always as (case when return_approved = false then book_id end),
+    created_date datetime(6) not null,
+    last_modified_date datetime(6) not null,
+    created_by integer not null,
+    last_modified_by integer not null,
+    primary key (id),
+    constraint uk_history_active_book unique (active_book_id),
+    constraint fk_history_user foreign key (user_id) references _user (id),
+    constraint fk_history_book foreign key (book_id) references book (id)
+) engine=InnoDB;
+
+create table book_transaction_history_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into book_transaction_history_seq values (1);
+
+-- isAlreadyBorrowed-style checks by borrower, findByBookIdAndUserId; also serves fk_history_user
+create index idx_history_user_book on book_transaction_history (user_id, book_id, returned, return_approved);
+-- borrowed-books listings in creation order
+create index idx_history_user_created on book_transaction_history (user_id, created_date);
+-- owner side, reached through idx_book_owner_created; also serves fk_history_book
+create index idx_history_book_status on book_transaction_history (book_id, returned, return_approved);
+
+create table feedback (
+    id integer not null,
+    note float(53) not null,
+    comment varchar(255),
+    book_id integer,
+    created_date datetime(6) not null,
+    last_modified_date datetime(6) not null,
+    created_by integer not null,
+    last_modified_by integer not null,
+    primary key (id),
+    constraint fk_feedback_book foreign key (book_id) references book (id)
+) engine=InnoDB;
+
+create table feedback_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into feedback_seq values (1);
+
+create table token (
+    id integer not null,
+    token varchar(255) not null,
+    created_at datetime(6),
+    expires_at datetime(6),
+    validate_at datetime(6),
+    user_id integer not null,
+    primary key (id),
+    constraint uk_token_token unique (token),
+    constraint fk_token_user foreign key (user_id) references _user (id)
+) engine=InnoDB;
+
+create table token_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into token_seq values (1);
+
+create table email_outbox (
+    id integer not null,
+    recipient varchar(255) not null,
+    subject varchar(255) not null,
+    body text not null,
+    status enum ('FAILED','PENDING') not null,
+    attempts integer not null,
+    created_at datetime(6) not null,
+    next_attempt_at datetime(6) not null,
+    last_error varchar(1000),
+    primary key (id)
+) engine=InnoDB;
+
+create table email_outbox_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into email_outbox_seq values (1);
+
+create index idx_email_outbox_due on email_outbox (status, next_attempt_at);
@@ -0,0 +1,103 @@
+package com.tech.BookStore.auth;
+
+import com.tech.BookStore.exception.ActivationTokenExpiredException;
+import com.tech.BookStore.exception.ConflictException;
+import com.tech.BookStore.token.Token;
+import com.tech.BookStore.token.TokenRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountActivationTest {
+
+    @MockitoSpyBean
+    private ActivationCodeGenerator activationCodeGenerator;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private TokenRepo tokenRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void aLateClickOnAnExpiredCodeNeverActivatesAnotherAccount() {
+        User first = register();
+        Token expired = tokenOf(first).get(0);
+        expired.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        tokenRepo.save(expired);
+
+        // the second sign-up draws the expired code first and has to move on to another one
+        doReturn(expired.getToken()).doCallRealMethod().when(activationCodeGenerator).next();
+        User second = register();
+        doCallRealMethod().when(activationCodeGenerator).next();
+        assertThat(tokenOf(second)).singleElement()
+                .extracting(Token::getToken).isNotEqualTo(expired.getToken());
+
+        assertThatThrownBy(() -> authenticationService.activateAccount(expired.getToken()))
+                .isInstanceOf(ActivationTokenExpiredException.class);
+
+        assertThat(enabled(second)).isFalse();
+        assertThat(enabled(first)).isFalse();
+        assertThat(tokenOf(first)).hasSize(2);
+    }
+
+    @Test
+    void aUsedCodeIsRejected() {
+        User user = register();
+        String code = tokenOf(user).get(0).getToken();
+
+        authenticationService.activateAccount(code);
+        assertThat(enabled(user)).isTrue();
+
+        assertThatThrownBy(() -> authenticationService.activateAccount(code))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void codesAreEightCharactersWithoutLookAlikes() {
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(activationCodeGenerator.next()).matches("[A-HJ-NP-Z2-9]{8}");
+        }
+    }
+
+    private User register() {
+        String email = UUID.randomUUID() + "@mail.com";
+        authenticationService.register(RegistrationRequest.builder()
+                .firstName("first")
+                .lastName("last")
+                .email(email)
+                .password("password")
+                .build());
+        return userRepo.findByEmail(email).orElseThrow();
+    }
+
+    // User.isEnabled() is hard-wired to true, the column is what activation changes
+    private boolean enabled(User user) {
+        return jdbcTemplate.queryForObject("select enabled from _user where id = ?", Boolean.class, user.getId());
+    }
+
+    private List<Token> tokenOf(User user) {
+        return tokenRepo.findAll().stream()
+                .filter(token -> token.getUser().getId().equals(user.getId()))
+                .toList();
+    }
+}
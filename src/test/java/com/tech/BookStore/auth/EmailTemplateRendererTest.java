@@ -0,0 +1,92 @@
+package com.tech.BookStore.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateRendererTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int MESSAGES = 10_000;
+
+    private EmailTemplateRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        renderer = new EmailTemplateRenderer(engine);
+        renderer.compileAll();
+    }
+
+    @Test
+    void compiledOutputMatchesThymeleaf() {
+        Map<String, String> values = Map.of(
+                "username", "O'Brien <b>& \"Co\"</b> Łukasz",
+                "confirmationUrl", "http://localhost:4200/activate-account?a=1&b=\"2\"",
+                "activation_code", "012345");
+
+        String compiled = renderer.render(EmailTemplate.ACTIVATE_ACCOUNT, values);
+
+        assertThat(compiled).isEqualTo(renderer.renderWithThymeleaf(EmailTemplate.ACTIVATE_ACCOUNT.getName(), values));
+        assertThat(compiled)
+                .contains("012345")
+                .contains("O&#39;Brien &lt;b&gt;&amp; &quot;Co&quot;&lt;/b&gt; Łukasz")
+                .doesNotContain("tplvar");
+    }
+
+    @Test
+    void compiledOutputMatchesThymeleafForEveryMessage() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(renderer.render(EmailTemplate.ACTIVATE_ACCOUNT, values(i)))
+                    .isEqualTo(renderer.renderWithThymeleaf(EmailTemplate.ACTIVATE_ACCOUNT.getName(), values(i)));
+        }
+    }
+
+    // run with -Pbenchmark; the numbers are published as report entries, not asserted
+    @Test
+    @Tag("benchmark")
+    void benchmarkPerMessageRenderCost(TestReporter reporter) {
+        long thymeleaf = measure(i -> renderer.renderWithThymeleaf(EmailTemplate.ACTIVATE_ACCOUNT.getName(), values(i)));
+        long compiled = measure(i -> renderer.render(EmailTemplate.ACTIVATE_ACCOUNT, values(i)));
+
+        reporter.publishEntry(Map.of(
+                "thymeleaf ns/message", String.valueOf(thymeleaf),
+                "compiled ns/message", String.valueOf(compiled)));
+    }
+
+    private static long measure(IntFunction<String> render) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += render.apply(i).length();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            sink += render.apply(i).length();
+        }
+        long perMessage = (System.nanoTime() - started) / MESSAGES;
+        assertThat(sink).isPositive();
+        return perMessage;
+    }
+
+    private static Map<String, String> values(int i) {
+        return Map.of(
+                "username", "User " + i,
+                "confirmationUrl", "http://localhost:4200/activate-account",
+                "activation_code", String.format("%06d", i % 1_000_000));
+    }
+}
@@ -0,0 +1,165 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.exception.ConflictException;
+import com.tech.BookStore.history.BookTransactionHistory;
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static com.tech.BookStore.book.TestBooks.newBook;
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookBorrowConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 5;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private BookTransactionHistoryRepo bookTransactionHistoryRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+
+    private User owner;
+    private List<Authentication> borrowers;
+
+    @BeforeEach
+    void setUp() {
+        owner = newUser(userRepo, roleRepo);
+        borrowers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            User borrower = newUser(userRepo, roleRepo);
+            borrowers.add(new UsernamePasswordAuthenticationToken(borrower, null, borrower.getAuthorities()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookTransactionHistoryRepo.deleteAll();
+        bookRepo.deleteAll();
+    }
+
+    @Test
+    void manyThreadsBorrowingOneBookProduceExactlyOneLoan() throws Exception {
+        Integer bookId = newBook(bookRepo, owner).getId();
+
+        Outcome outcome = hammer(thread -> bookId);
+
+        assertThat(outcome.successes.get()).isEqualTo(1);
+        assertThat(outcome.conflicts.get()).isEqualTo(THREADS * ATTEMPTS_PER_THREAD - 1);
+        assertThat(bookTransactionHistoryRepo.isAlreadyBorrowed(bookId)).isTrue();
+        assertThat(bookTransactionHistoryRepo.count()).isEqualTo(1);
+    }
+
+    @Test
+    void differentBooksAreBorrowedInParallel() throws Exception {
+        List<Integer> bookIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookIds.add(newBook(bookRepo, owner).getId());
+        }
+
+        Outcome outcome = hammer(bookIds::get);
+
+        assertThat(outcome.successes.get()).isEqualTo(THREADS);
+        assertThat(bookTransactionHistoryRepo.count()).isEqualTo(THREADS);
+    }
+
+    @Test
+    void databaseRejectsSecondActiveLoanEvenWithoutTheLock() {
+        Book book = newBook(bookRepo, owner);
+        bookTransactionHistoryRepo.saveAndFlush(loan(book, borrowers.get(0)));
+
+        assertThatThrownBy(() -> bookTransactionHistoryRepo.saveAndFlush(loan(book, borrowers.get(1))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void ownBookAndUnshareableBookCannotBeBorrowed() {
+        Book book = newBook(bookRepo, owner);
+        Authentication ownerAuth = new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities());
+
+        assertThatThrownBy(() -> bookService.borrowBooks(book.getId(), ownerAuth))
+                .hasMessage("You cant borrow your own book");
+
+        book.setShareable(false);
+        bookRepo.save(book);
+        assertThatThrownBy(() -> bookService.borrowBooks(book.getId(), borrowers.get(0)))
+                .hasMessage("The requested bok cant be borrowed");
+    }
+
+    private Outcome hammer(IntFunction<Integer> bookForThread) throws Exception {
+        Outcome outcome = new Outcome();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Authentication auth = borrowers.get(t);
+                Integer bookId = bookForThread.apply(t);
+                futures.add(pool.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                        try {
+                            SecurityContextHolder.getContext().setAuthentication(auth);
+                            bookService.borrowBooks(bookId, auth);
+                            outcome.successes.incrementAndGet();
+                        } catch (ConflictException e) {
+                            outcome.conflicts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private BookTransactionHistory loan(Book book, Authentication borrower) {
+        SecurityContextHolder.getContext().setAuthentication(borrower);
+        return BookTransactionHistory.builder()
+                .book(book)
+                .user((User) borrower.getPrincipal())
+                .build();
+    }
+
+    private static final class Outcome {
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger conflicts = new AtomicInteger();
+    }
+}
@@ -0,0 +1,153 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.tech.BookStore.book.TestBooks.book;
+import static com.tech.BookStore.book.TestBooks.newBook;
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookBulkOperationsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private BookTransactionHistoryRepo bookTransactionHistoryRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User stranger;
+
+    @BeforeEach
+    void setUp() {
+        owner = newUser(userRepo, roleRepo);
+        stranger = newUser(userRepo, roleRepo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookTransactionHistoryRepo.deleteAll();
+        bookRepo.deleteAll();
+    }
+
+    @Test
+    void archivesOwnBooksWithOneLookupAndOneUpdate() throws Exception {
+        Book first = newBook(bookRepo, owner);
+        Book second = newBook(bookRepo, owner);
+        Book alreadyArchived = newBook(bookRepo, book(owner).archived(true));
+        Book foreign = newBook(bookRepo, stranger);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(put("/books/archived")
+                        .with(authentication(authenticationOf(owner)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"bookIds":[%d,%d,%d,%d,%d,%d],"value":true}
+                                """.formatted(first.getId(), second.getId(), alreadyArchived.getId(),
+                                foreign.getId(), Integer.MAX_VALUE, first.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.results.length()").value(5))
+                .andExpect(jsonPath("$.results[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.results[1].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.results[2].outcome").value("UNCHANGED"))
+                .andExpect(jsonPath("$.results[3].outcome").value("NOT_OWNER"))
+                .andExpect(jsonPath("$.results[4].outcome").value("NOT_FOUND"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(bookRepo.findById(first.getId()).orElseThrow().isArchived()).isTrue();
+        assertThat(bookRepo.findById(second.getId()).orElseThrow().getVersion()).isEqualTo(1L);
+        assertThat(bookRepo.findById(alreadyArchived.getId()).orElseThrow().getVersion()).isZero();
+        assertThat(bookRepo.findById(foreign.getId()).orElseThrow().isArchived()).isFalse();
+    }
+
+    @Test
+    void approvesOnlyReturnedLoansOfOwnBooks() throws Exception {
+        Book returned = newBook(bookRepo, owner);
+        Book stillLent = newBook(bookRepo, owner);
+        Book foreign = newBook(bookRepo, stranger);
+        Authentication borrower = authenticationOf(newUser(userRepo, roleRepo));
+        // the loans are audited with the signed-in user, as they would be in a request
+        SecurityContextHolder.getContext().setAuthentication(borrower);
+        bookService.borrowBooks(returned.getId(), borrower);
+        bookService.borrowBooks(stillLent.getId(), borrower);
+        bookService.returnBorrowBook(returned.getId(), borrower);
+
+        mockMvc.perform(patch("/books/borrow/return/approve")
+                        .with(authentication(authenticationOf(owner)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"bookIds":[%d,%d,%d]}
+                                """.formatted(returned.getId(), stillLent.getId(), foreign.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.results[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.results[1].outcome").value("NOTHING_TO_APPROVE"))
+                .andExpect(jsonPath("$.results[2].outcome").value("NOT_OWNER"));
+
+        assertThat(bookTransactionHistoryRepo.isAlreadyBorrowed(returned.getId())).isFalse();
+        assertThat(bookTransactionHistoryRepo.isAlreadyBorrowed(stillLent.getId())).isTrue();
+        // the approved loan no longer blocks the book
+        SecurityContextHolder.getContext().setAuthentication(borrower);
+        bookService.borrowBooks(returned.getId(), borrower);
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedSelections() throws Exception {
+        mockMvc.perform(put("/books/shareable")
+                        .with(authentication(authenticationOf(owner)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookIds\":[],\"value\":true}"))
+                .andExpect(status().isBadRequest());
+
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i <= BookBulkService.MAX_IDS; i++) {
+            ids.append(i == 0 ? "" : ",").append(i);
+        }
+        mockMvc.perform(put("/books/shareable")
+                        .with(authentication(authenticationOf(owner)))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"bookIds\":[" + ids + "],\"value\":true}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static Authentication authenticationOf(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
@@ -0,0 +1,176 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static com.tech.BookStore.book.TestBooks.book;
+import static com.tech.BookStore.book.TestBooks.newBook;
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookCoverEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Value("${application.file.upload.photos-output-path}")
+    private String fileUploadPath;
+
+    private User owner;
+    private Book book;
+    private byte[] content;
+    private String eTag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        owner = newUser(userRepo, roleRepo);
+
+        String version = UUID.randomUUID().toString();
+        String bookCover = Paths.get("users", String.valueOf(owner.getId()), version + ".png").toString();
+        content = new byte[1000];
+        Arrays.fill(content, (byte) 7);
+        Path file = Paths.get(fileUploadPath).resolve(bookCover);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+
+        book = newBook(bookRepo, book(owner).bookCover(bookCover));
+        eTag = "\"" + version + "\"";
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepo.deleteAll();
+    }
+
+    @Test
+    void servesWholeCoverWithoutAuthentication() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books/cover/{id}", book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, no-cache"))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void hiddenBooksServeTheirCoverOnlyToTheOwner() throws Exception {
+        User stranger = newUser(userRepo, roleRepo);
+        book.setShareable(false);
+        book = bookRepo.save(book);
+
+        mockMvc.perform(get("/books/cover/{id}", book.getId()))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/books/cover/{id}", book.getId())
+                        .with(authentication(new UsernamePasswordAuthenticationToken(stranger, null, stranger.getAuthorities()))))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/books/cover/{id}", book.getId())
+                        .with(authentication(new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"));
+
+        book.setShareable(true);
+        book.setArchived(true);
+        book = bookRepo.save(book);
+        mockMvc.perform(get("/books/cover/{id}", book.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void versionedUrlFromResponseIsCachedForever() throws Exception {
+        String coverUrl = bookMapper.toBookResponse(book).getCoverUrl();
+        String version = coverUrl.substring(coverUrl.indexOf("?v=") + 3);
+
+        mockMvc.perform(get("/books/cover/{id}", book.getId()).param("v", version))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"));
+    }
+
+    @Test
+    void thumbnailSizeFallsBackToOriginalUntilItIsGenerated() throws Exception {
+        String version = eTag.substring(1, eTag.length() - 1);
+        mockMvc.perform(get("/books/cover/{id}", book.getId()).param("size", "list").param("v", version))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, no-cache"));
+
+        Path original = Paths.get(fileUploadPath).resolve(book.getBookCover());
+        Files.write(ThumbnailSize.LIST.pathFor(original), new byte[]{1, 2, 3});
+
+        MvcResult result = mockMvc.perform(get("/books/cover/{id}", book.getId()).param("size", "list").param("v", version))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + version + "-list\""))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, ImageFormat.JPEG.getMediaType()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andReturn();
+        assertThat(result.getResponse().getContentAsByteArray()).hasSize(3);
+    }
+
+    @Test
+    void matchingETagGivesNotModified() throws Exception {
+        mockMvc.perform(get("/books/cover/{id}", book.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void rangeRequestReturnsOnlyThatSlice() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books/cover/{id}", book.getId()).header(HttpHeaders.RANGE, "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/1000"))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).hasSize(100);
+
+        mockMvc.perform(get("/books/cover/{id}", book.getId()).header(HttpHeaders.RANGE, "bytes=5000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+    }
+
+    @Test
+    void handsFileToContainerWhenSendfileIsSupported() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books/cover/{id}", book.getId())
+                        .requestAttr(BookCoverService.SENDFILE_SUPPORT, Boolean.TRUE)
+                        .header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(result.getRequest().getAttribute(BookCoverService.SENDFILE_START)).isEqualTo(990L);
+        assertThat(result.getRequest().getAttribute(BookCoverService.SENDFILE_END)).isEqualTo(1000L);
+    }
+}
@@ -0,0 +1,134 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "application.books.import.chunk-size=20")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookImportService bookImportService;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = newUser(userRepo, roleRepo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookRepo.deleteAll();
+    }
+
+    @Test
+    void importsCsvInBatchesAndReportsBadRows() throws Exception {
+        StringBuilder csv = new StringBuilder("isbn,title,authorName,synopsis,shareable\r\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("isbn-").append(i).append(",Title ").append(i).append(",Author,Synopsis,true\r\n");
+        }
+        csv.append("isbn-x,\"Quoted, with \"\"quotes\"\"\",Author,\"multi\nline\",false\n");
+        csv.append("isbn-y,,Author,Synopsis,true\n");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(post("/books/import")
+                        .contentType("text/csv")
+                        .content(csv.toString())
+                        .with(authentication(new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(101))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(102))
+                .andExpect(jsonPath("$.errors[0].errors[0]").value("100"));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(101);
+        // inserts go out as JDBC batches, one prepared statement per chunk rather than per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(30);
+        Book quoted = bookRepo.findAll().stream().filter(book -> "isbn-x".equals(book.getIsbn())).findFirst().orElseThrow();
+        assertThat(quoted.getTitle()).isEqualTo("Quoted, with \"quotes\"");
+        assertThat(quoted.getSynopsis()).isEqualTo("multi\nline");
+        assertThat(quoted.getOwner().getId()).isEqualTo(owner.getId());
+    }
+
+    @Test
+    void importsNdjsonAndReportsMalformedLines() throws Exception {
+        String ndjson = """
+                {"id": 999999, "title": "One", "authorName": "A", "isbn": "1", "synopsis": "S", "shareable": true}
+                {"title": "Two", "authorName": "B", "isbn": "2", "synopsis": "S"}
+                {"title": "broken"
+
+                {"title": "Four", "authorName": "D", "isbn": "4"}
+                """;
+
+        mockMvc.perform(post("/books/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson)
+                        .with(authentication(new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(3))
+                .andExpect(jsonPath("$.errors[1].row").value(4))
+                .andExpect(jsonPath("$.errors[1].errors[0]").value("103"));
+
+        assertThat(bookRepo.findAll()).extracting(Book::getTitle).containsExactlyInAnyOrder("One", "Two");
+        assertThat(bookRepo.findById(999999)).isEmpty();
+    }
+
+    // a job or a test calls the service without a request-bound session
+    @Test
+    void importsOutsideAWebRequestWithoutFillingTheSecondLevelCache() throws Exception {
+        String csv = "isbn,title,authorName,synopsis,shareable\n1,One,A,S,true\n2,Two,B,S,false\n";
+        Authentication connectedUser = new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(connectedUser);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BookImportResponse response = bookImportService.importBooks(BookImportFormat.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), connectedUser);
+
+        assertThat(response.getErrors()).isEmpty();
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+    }
+}
@@ -0,0 +1,149 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.tech.BookStore.book.TestBooks.newBook;
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookListingQueryCountTest {
+
+    private static final int OWNERS = 12;
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User reader;
+    private User shelfOwner;
+
+    @BeforeEach
+    void setUp() {
+        reader = newUser(userRepo, roleRepo);
+        authenticate(reader);
+        for (int i = 0; i < OWNERS; i++) {
+            User owner = newUser(userRepo, roleRepo);
+            newBook(bookRepo, owner);
+            newBook(bookRepo, owner);
+            shelfOwner = owner;
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookRepo.deleteAll();
+    }
+
+    @Test
+    void displayableBooksPageUsesFixedNumberOfStatements() {
+        Authentication auth = authenticate(reader);
+
+        long smallPage = countStatements(() -> bookService.findAllBooks(0, 2, true, auth));
+        long largePage = countStatements(() -> bookService.findAllBooks(0, 2 * OWNERS, true, auth));
+
+        assertThat(largePage).isEqualTo(smallPage);
+        assertThat(largePage).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void ownerBooksPageUsesFixedNumberOfStatements() {
+        Authentication auth = authenticate(shelfOwner);
+
+        long firstPage = countStatements(() -> bookService.findAllBooksByOwner(0, 1, true, auth));
+        long wholeShelf = countStatements(() -> bookService.findAllBooksByOwner(0, 10, true, auth));
+
+        assertThat(firstPage).isLessThanOrEqualTo(3);
+        assertThat(wholeShelf).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void sliceModeSkipsCountQuery() {
+        Authentication auth = authenticate(reader);
+        var page = new AtomicReference<PageResponse<BookResponse>>();
+
+        long statements = countStatements(() -> page.set(bookService.findAllBooks(0, 5, false, auth)));
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(page.get().getContent()).hasSize(5);
+        assertThat(page.get().isHasNext()).isTrue();
+        assertThat(page.get().getTotalElements()).isNull();
+    }
+
+    @Test
+    void keysetPagesCostOneStatementAndCoverEveryBook() {
+        Authentication auth = authenticate(reader);
+        Set<Integer> seen = new HashSet<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            final String after = cursor;
+            var page = new AtomicReference<PageResponse<BookResponse>>();
+            long statements = countStatements(() -> page.set(bookService.findAllBooks(after, 5, auth)));
+
+            assertThat(statements).isEqualTo(1);
+            page.get().getContent().forEach(book -> assertThat(seen.add(book.getId())).isTrue());
+            cursor = page.get().getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(2 * OWNERS);
+        assertThat(pages).isEqualTo(5);
+    }
+
+    @Test
+    void bookDetailIsServedFromSecondLevelCache() {
+        Integer bookId = bookRepo.findAll().get(0).getId();
+        entityManagerFactory.getCache().evictAll();
+        bookService.findById(bookId);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        bookService.findById(bookId);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("book").getHitCount()).isEqualTo(1);
+    }
+
+    private long countStatements(Runnable listing) {
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Authentication authenticate(User user) {
+        var auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        return auth;
+    }
+}
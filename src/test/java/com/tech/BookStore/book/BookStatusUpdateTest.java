@@ -0,0 +1,170 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.search.BookDocument;
+import com.tech.BookStore.search.BookSuggestIndex;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.UUID;
+
+import static com.tech.BookStore.book.TestBooks.book;
+import static com.tech.BookStore.book.TestBooks.newBook;
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookStatusUpdateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+
+    private User owner;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        owner = newUser(userRepo, roleRepo);
+        book = newBook(bookRepo, book(owner).title("Quenta " + UUID.randomUUID().toString().substring(0, 8)));
+        bookSuggestIndex.index(BookDocument.of(book));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepo.deleteAll();
+    }
+
+    @Test
+    void getReturnsTheVersionAsETag() throws Exception {
+        mockMvc.perform(get("/books/" + book.getId()).with(as(owner)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        mockMvc.perform(get("/books/" + book.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void putWithCurrentVersionSetsTheValueAndReturnsTheNextETag() throws Exception {
+        mockMvc.perform(put("/books/shareable/" + book.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"value\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        Book updated = bookRepo.findById(book.getId()).orElseThrow();
+        assertThat(updated.isShareable()).isFalse();
+        assertThat(updated.isArchived()).isFalse();
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(bookSuggestIndex.suggest(book.getTitle(), 10)).isEmpty();
+
+        // setting the same value again is idempotent, only the version moves
+        mockMvc.perform(put("/books/shareable/" + book.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"value\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        assertThat(bookRepo.findById(book.getId()).orElseThrow().isShareable()).isFalse();
+    }
+
+    @Test
+    void staleIfMatchIsRejectedWithoutWriting() throws Exception {
+        mockMvc.perform(put("/books/archived/" + book.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_MATCH, "\"7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"value\":true}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch("/books/archived/" + book.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_MATCH, "W/\"0\""))
+                .andExpect(status().isPreconditionFailed());
+
+        Book unchanged = bookRepo.findById(book.getId()).orElseThrow();
+        assertThat(unchanged.isArchived()).isFalse();
+        assertThat(unchanged.getVersion()).isZero();
+    }
+
+    @Test
+    void statusWritesWithoutIfMatchAreRefused() throws Exception {
+        mockMvc.perform(put("/books/shareable/" + book.getId()).with(as(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"value\":false}"))
+                .andExpect(status().isPreconditionRequired());
+        mockMvc.perform(patch("/books/archived/" + book.getId()).with(as(owner)))
+                .andExpect(status().isPreconditionRequired());
+
+        Book unchanged = bookRepo.findById(book.getId()).orElseThrow();
+        assertThat(unchanged.isShareable()).isTrue();
+        assertThat(unchanged.isArchived()).isFalse();
+        assertThat(unchanged.getVersion()).isZero();
+    }
+
+    @Test
+    void patchTogglesTheArchivedFlagOnly() throws Exception {
+        mockMvc.perform(patch("/books/archived/" + book.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        Book updated = bookRepo.findById(book.getId()).orElseThrow();
+        assertThat(updated.isArchived()).isTrue();
+        assertThat(updated.isShareable()).isTrue();
+        assertThat(bookSuggestIndex.suggest(book.getTitle(), 10)).isEmpty();
+
+        mockMvc.perform(patch("/books/archived/" + book.getId()).with(as(owner))
+                        .header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+        assertThat(bookRepo.findById(book.getId()).orElseThrow().isArchived()).isFalse();
+        assertThat(bookSuggestIndex.suggest(book.getTitle(), 10)).isNotEmpty();
+    }
+
+    @Test
+    void onlyTheOwnerCanChangeTheStatus() throws Exception {
+        mockMvc.perform(put("/books/shareable/" + book.getId()).with(as(newUser(userRepo, roleRepo)))
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"value\":false}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/books/shareable/" + Integer.MAX_VALUE).with(as(owner))
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+
+        assertThat(bookRepo.findById(book.getId()).orElseThrow().isShareable()).isTrue();
+    }
+
+    private static RequestPostProcessor as(User user) {
+        return authentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.tech.BookStore.book;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoverBlobSweeperTest {
+
+    private static final String SHARD = "blobs/ab/cd/";
+
+    @TempDir
+    Path uploadRoot;
+
+    private BookRepo bookRepo;
+    private BlobLocks blobLocks;
+    private CoverBlobSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        bookRepo = mock(BookRepo.class);
+        blobLocks = new BlobLocks(16);
+        sweeper = new CoverBlobSweeper(bookRepo, blobLocks, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sweeper, "fileUploadPath", uploadRoot.toString());
+        ReflectionTestUtils.setField(sweeper, "gracePeriod", Duration.ofHours(1));
+    }
+
+    @Test
+    void removesOnlyOldUnreferencedBlobsWithTheirThumbnails() throws Exception {
+        Path referenced = blob("abcd01.png", true);
+        Path orphan = blob("abcd02.png", true);
+        Path orphanThumbnail = ThumbnailSize.LIST.pathFor(orphan);
+        Files.write(orphanThumbnail, new byte[]{1});
+        Path fresh = blob("abcd03.png", false);
+        when(bookRepo.findCoversStartingWith(SHARD)).thenReturn(List.of(SHARD + "abcd01.png"));
+
+        sweeper.sweep();
+
+        assertThat(referenced).exists();
+        assertThat(fresh).exists();
+        assertThat(orphan).doesNotExist();
+        assertThat(orphanThumbnail).doesNotExist();
+    }
+
+    @Test
+    void keepsBlobsReferencedAfterTheShardWasListed() throws Exception {
+        Path blob = blob("abcd01.png", true);
+        when(bookRepo.findCoversStartingWith(SHARD)).thenReturn(List.of());
+        when(bookRepo.existsByBookCover(SHARD + "abcd01.png")).thenReturn(true);
+
+        sweeper.sweep();
+
+        assertThat(blob).exists();
+    }
+
+    // an upload deduplicated onto the blob holds its lock while it refreshes the mtime
+    @Test
+    void waitsForAnUploadTouchingTheBlob() throws Exception {
+        Path blob = blob("abcd01.png", true);
+        when(bookRepo.findCoversStartingWith(SHARD)).thenReturn(List.of());
+        CompletableFuture<Void> sweep = new CompletableFuture<>();
+
+        blobLocks.withLock(SHARD + "abcd01.png", () -> {
+            sweep.completeAsync(() -> {
+                sweeper.sweep();
+                return null;
+            });
+            assertThatThrownBy(() -> sweep.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+            return null;
+        });
+        sweep.get(5, TimeUnit.SECONDS);
+
+        assertThat(blob).exists();
+    }
+
+    private Path blob(String name, boolean old) throws Exception {
+        Path file = uploadRoot.resolve(SHARD + name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[]{1, 2, 3});
+        if (old) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        }
+        return file;
+    }
+}
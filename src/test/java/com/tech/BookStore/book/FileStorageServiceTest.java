@@ -0,0 +1,117 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.exception.OperationNotPermittedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStorageServiceTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @TempDir
+    Path uploadRoot;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(meterRegistry, new BlobLocks(16));
+        ReflectionTestUtils.setField(fileStorageService, "fileUploadPath", uploadRoot.toString());
+        ReflectionTestUtils.setField(fileStorageService, "maxFileSize", DataSize.ofKilobytes(4));
+    }
+
+    @Test
+    void storesImageUnderItsContentHashWithSniffedExtension() throws Exception {
+        byte[] content = image(PNG_HEADER, 1024);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        String stored = fileStorageService.saveFile(file("cover.jpg", content));
+
+        assertThat(stored).isEqualTo("blobs/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".png");
+        Path written = uploadRoot.resolve(stored);
+        assertThat(Files.readAllBytes(written)).isEqualTo(content);
+        try (var files = Files.list(written.getParent())) {
+            assertThat(files).containsExactly(written);
+        }
+    }
+
+    @Test
+    void identicalUploadsShareOneBlob() throws IOException {
+        byte[] content = image(PNG_HEADER, 2048);
+
+        String first = fileStorageService.saveFile(file("a.png", content));
+        Path blob = uploadRoot.resolve(first);
+        Files.setLastModifiedTime(blob, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        String second = fileStorageService.saveFile(file("b.png", content));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(Files.getLastModifiedTime(blob).toInstant()).isAfter(Instant.now().minus(Duration.ofMinutes(1)));
+        assertThat(meterRegistry.get("book.covers.uploads").tag("result", "deduplicated").counter().count()).isEqualTo(1);
+        try (var files = Files.list(uploadRoot.resolve("blobs").resolve("tmp"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotImages() {
+        byte[] content = "just some text pretending".getBytes();
+
+        assertThatThrownBy(() -> fileStorageService.saveFile(file("cover.png", content)))
+                .isInstanceOf(OperationNotPermittedException.class);
+    }
+
+    @Test
+    void abortsStreamThatGrowsPastLimitAndLeavesNothingBehind() throws IOException {
+        byte[] content = image(PNG_HEADER, 64 * 1024);
+        // the client lies about the size, so only the streaming guard can catch it
+        MockMultipartFile lying = new MockMultipartFile("file", "cover.png", "image/png", content) {
+            @Override
+            public long getSize() {
+                return 10;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(content);
+            }
+        };
+
+        assertThatThrownBy(() -> fileStorageService.saveFile(lying))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        try (var files = Files.list(uploadRoot.resolve("blobs").resolve("tmp"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private static MockMultipartFile file(String name, byte[] content) {
+        return new MockMultipartFile("file", name, "application/octet-stream", content);
+    }
+
+    private static byte[] image(byte[] header, int size) {
+        byte[] content = Arrays.copyOf(header, size);
+        Arrays.fill(content, header.length, size, (byte) 7);
+        return content;
+    }
+}
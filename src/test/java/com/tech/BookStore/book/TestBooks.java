@@ -0,0 +1,41 @@
+package com.tech.BookStore.book;
+
+import com.tech.BookStore.user.User;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// shareable books with placeholder details, shared by the integration tests
+public final class TestBooks {
+
+    private TestBooks() {
+    }
+
+    public static Book.BookBuilder<?, ?> book(User owner) {
+        return Book.builder()
+                .title("title")
+                .authorName("author")
+                .isbn("isbn")
+                .synopsis("synopsis")
+                .shareable(true)
+                .owner(owner);
+    }
+
+    public static Book newBook(BookRepo bookRepo, User owner) {
+        return newBook(bookRepo, book(owner));
+    }
+
+    // auditing reads the creator from the security context, so the owner is signed in for the save
+    public static Book newBook(BookRepo bookRepo, Book.BookBuilder<?, ?> builder) {
+        Book book = builder.build();
+        User owner = book.getOwner();
+        Authentication previous = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(owner, null, owner.getAuthorities()));
+        try {
+            return bookRepo.save(book);
+        } finally {
+            SecurityContextHolder.getContext().setAuthentication(previous);
+        }
+    }
+}
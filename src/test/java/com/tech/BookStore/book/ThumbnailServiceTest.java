@@ -0,0 +1,105 @@
+package com.tech.BookStore.book;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailServiceTest {
+
+    @TempDir
+    Path uploadRoot;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        thumbnailService = new ThumbnailService(null, meterRegistry);
+        ReflectionTestUtils.setField(thumbnailService, "fileUploadPath", uploadRoot.toString());
+        ReflectionTestUtils.setField(thumbnailService, "workers", 1);
+        ReflectionTestUtils.setField(thumbnailService, "queueCapacity", 10);
+        thumbnailService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        thumbnailService.shutdown();
+    }
+
+    @Test
+    void writesEveryThumbnailSizeWithinItsBox() throws Exception {
+        Path original = writePng("cover.png", 1200, 600);
+
+        thumbnailService.schedule(1, "cover.png");
+        drain();
+
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            BufferedImage thumbnail = ImageIO.read(size.pathFor(original).toFile());
+            assertThat(thumbnail.getWidth()).isEqualTo(size.getMaxWidth());
+            assertThat(thumbnail.getHeight()).isEqualTo(size.getMaxWidth() / 2);
+        }
+        assertThat(meterRegistry.get("book.thumbnails.processing").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedJobsForSameBookAreCoalesced() throws Exception {
+        writePng("first.png", 300, 300);
+        Path latest = writePng("latest.png", 300, 300);
+        CountDownLatch busy = new CountDownLatch(1);
+        thumbnailService.executor.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(thumbnailService.schedule(1, "first.png")).isTrue();
+        assertThat(thumbnailService.schedule(1, "latest.png")).isFalse();
+        assertThat(meterRegistry.get("book.thumbnails.queue").gauge().value()).isEqualTo(1);
+
+        busy.countDown();
+        drain();
+
+        assertThat(meterRegistry.get("book.thumbnails.processing").timer().count()).isEqualTo(1);
+        assertThat(ThumbnailSize.LIST.pathFor(latest)).exists();
+        assertThat(ThumbnailSize.LIST.pathFor(uploadRoot.resolve("first.png"))).doesNotExist();
+    }
+
+    @Test
+    void jobsAfterShutdownAreDroppedWithoutBlockingTheBook() throws Exception {
+        thumbnailService.shutdown();
+
+        assertThat(thumbnailService.schedule(1, "cover.png")).isFalse();
+        assertThat(thumbnailService.schedule(1, "cover.png")).isFalse();
+        assertThat(ReflectionTestUtils.getField(thumbnailService, "pending")).asInstanceOf(InstanceOfAssertFactories.MAP).isEmpty();
+    }
+
+    private Path writePng(String name, int width, int height) throws Exception {
+        Path file = uploadRoot.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", file.toFile());
+        return file;
+    }
+
+    private void drain() throws Exception {
+        thumbnailService.executor.shutdown();
+        assertThat(thumbnailService.executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        try (var files = Files.list(uploadRoot)) {
+            assertThat(files.noneMatch(file -> file.toString().endsWith(".part"))).isTrue();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.tech.BookStore.config;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.tech.BookStore.book.Book;
+import com.tech.BookStore.book.BookRepo;
+import com.tech.BookStore.book.BookRequest;
+import com.tech.BookStore.book.BookService;
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// two in-memory databases stand in for the primary and its replica; replicate() plays replication
+@SpringBootTest(properties = {
+        "application.datasource.replica.url=jdbc:h2:mem:replica-${random.uuid};DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "application.datasource.replica.pin-after-write=PT1S"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class ReadWriteRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepo bookRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+    @Autowired
+    private ReplicaLagGuard replicaLagGuard;
+    @Autowired
+    private ManualTicker ticker;
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private User owner;
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        owner = newUser(userRepo, roleRepo);
+        reader = newUser(userRepo, roleRepo);
+        replicate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        new JdbcTemplate(primaryDataSource).update("delete from book_transaction_history");
+        bookRepo.deleteAll();
+    }
+
+    @Test
+    void readOnlyListingsAreServedByTheReplica() {
+        bookService.save(bookRequest(), login(owner));
+
+        Authentication readerAuth = login(reader);
+        assertThat(replicaLagGuard.isPinned(owner.getId())).isTrue();
+        assertThat(replicaLagGuard.isPinned(reader.getId())).isFalse();
+        assertThat(bookService.findAllBooks(0, 10, false, readerAuth).getContent()).isEmpty();
+
+        replicate();
+        assertThat(bookService.findAllBooks(0, 10, false, readerAuth).getContent()).hasSize(1);
+    }
+
+    @Test
+    void writerReadsFromThePrimaryUntilThePinExpires() {
+        Authentication ownerAuth = login(owner);
+        bookService.save(bookRequest(), ownerAuth);
+
+        assertThat(bookService.findAllBooksByOwner(0, 10, false, ownerAuth).getContent()).hasSize(1);
+
+        ticker.advance(Duration.ofMillis(1_100));
+        assertThat(replicaLagGuard.isPinned(owner.getId())).isFalse();
+        assertThat(bookService.findAllBooksByOwner(0, 10, false, ownerAuth).getContent()).isEmpty();
+    }
+
+    @Test
+    void readOnlyTransactionsSkipDirtyCheckingAndFlush() {
+        Integer bookId = bookService.save(bookRequest(), login(owner));
+        replicate();
+        login(reader);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            assertThat(routingDataSource.currentRoute()).isEqualTo(ReadWriteRoutingDataSource.Route.REPLICA);
+            Session session = entityManager.unwrap(Session.class);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+            Book book = bookRepo.findById(bookId).orElseThrow();
+            assertThat(session.isReadOnly(book)).isTrue();
+            book.setTitle("changed in a read-only transaction");
+        });
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertThat(routingDataSource.currentRoute()).isEqualTo(ReadWriteRoutingDataSource.Route.PRIMARY));
+
+        assertThat(title(primaryDataSource, bookId)).isEqualTo("title");
+        assertThat(title(replicaDataSource, bookId)).isEqualTo("title");
+    }
+
+    // the borrow request starts with a read; the loan must still be written to the primary
+    @Test
+    void writesThroughTheApiGoToThePrimary() throws Exception {
+        Integer bookId = bookService.save(bookRequest(), login(owner));
+        replicate();
+        Authentication readerAuth = login(reader);
+        SecurityContextHolder.clearContext();
+
+        mockMvc.perform(post("/books/borrow/{id}", bookId).with(authentication(readerAuth)))
+                .andExpect(status().isOk());
+
+        assertThat(loans(primaryDataSource, bookId)).isOne();
+        assertThat(loans(replicaDataSource, bookId)).isZero();
+        assertThat(replicaLagGuard.isPinned(reader.getId())).isTrue();
+    }
+
+    // a bulk update evicts the book region; a replica read must not refill it with the lagging row
+    @Test
+    void writerIsNotServedALaggingRowCachedByAReplicaRead() {
+        Authentication ownerAuth = login(owner);
+        Integer bookId = bookService.save(bookRequest(), ownerAuth);
+        replicate();
+        ticker.advance(Duration.ofSeconds(2));
+
+        bookService.setShareableStatus(bookId, false, "\"0\"", ownerAuth);
+        assertThat(replicaLagGuard.isPinned(owner.getId())).isTrue();
+
+        login(reader);
+        assertThat(bookService.findById(bookId).isShareable()).isTrue();
+
+        login(owner);
+        assertThat(bookService.findById(bookId).isShareable()).isFalse();
+    }
+
+    @TestConfiguration
+    static class TickerConfig {
+
+        @Bean
+        ManualTicker manualTicker() {
+            return new ManualTicker();
+        }
+    }
+
+    // lets the pins expire without waiting for them
+    static class ManualTicker implements Ticker {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+    }
+
+    // copies the primary, schema and rows, over the replica
+    private void replicate() {
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT", String.class);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+
+    private static String title(DataSource dataSource, Integer bookId) {
+        return new JdbcTemplate(dataSource).queryForObject("select title from book where id = ?", String.class, bookId);
+    }
+
+    private static int loans(DataSource dataSource, Integer bookId) {
+        return new JdbcTemplate(dataSource).queryForObject(
+                "select count(*) from book_transaction_history where book_id = ?", Integer.class, bookId);
+    }
+
+    private static BookRequest bookRequest() {
+        return new BookRequest(null, "title", "author", "isbn", "synopsis", true);
+    }
+
+    private static Authentication login(User user) {
+        Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authentication;
+    }
+}
@@ -0,0 +1,93 @@
+package com.tech.BookStore.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// the MySQL scripts on H2 in MySQL mode, with Hibernate validating instead of creating
+@SpringBootTest(properties = {
+        "application.schema.migrations.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class SchemaMigrationTest {
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+    @Autowired
+    private SchemaIndexVerifier schemaIndexVerifier;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrationsAreRecordedAndAppliedOnce() throws Exception {
+        assertThat(jdbcTemplate.queryForList("select script from schema_history order by version", String.class))
+                .containsExactly("V1__baseline.sql");
+
+        assertThat(schemaMigrator.migrate()).isZero();
+        assertThat(schemaIndexVerifier.verify()).isEmpty();
+    }
+
+    // the schema the original entities generated with ddl-auto: refused, nothing applied on top of it
+    @Test
+    void schemaCreatedByDdlAutoIsRefused() {
+        DataSource legacy = new DriverManagerDataSource("jdbc:h2:mem:legacy-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MySQL");
+        new ResourceDatabasePopulator(new ClassPathResource("db/legacy/ddl-auto-schema.sql")).execute(legacy);
+
+        assertThatThrownBy(() -> new SchemaMigrator(legacy, "classpath:db/migration").migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("recreate the database");
+
+        JdbcTemplate legacyJdbc = new JdbcTemplate(legacy);
+        assertThat(legacyJdbc.queryForObject(
+                "select count(*) from information_schema.tables where lower(table_name) in ('schema_history', 'email_outbox')",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void editedScriptIsRejected() {
+        Long checksum = jdbcTemplate.queryForObject("select checksum from schema_history where version = 1", Long.class);
+        jdbcTemplate.update("update schema_history set checksum = ? where version = 1", checksum + 1);
+        try {
+            assertThatThrownBy(schemaMigrator::migrate)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("V1__baseline.sql");
+        } finally {
+            jdbcTemplate.update("update schema_history set checksum = ? where version = 1", checksum);
+        }
+    }
+
+    @Test
+    void missingOrReorderedIndexesAreReported() {
+        jdbcTemplate.execute("drop index idx_book_cover");
+        jdbcTemplate.execute("drop index idx_history_user_created");
+        jdbcTemplate.execute("create index idx_history_user_created on book_transaction_history (created_date, user_id)");
+        try {
+            assertThat(schemaIndexVerifier.verify())
+                    .containsExactlyInAnyOrder(
+                            "idx_book_cover on book does not exist",
+                            "idx_history_user_created on book_transaction_history covers [created_date, user_id] instead of [user_id, created_date]");
+            assertThatThrownBy(schemaIndexVerifier::afterSingletonsInstantiated)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("idx_book_cover");
+        } finally {
+            jdbcTemplate.execute("create index idx_book_cover on book (book_cover)");
+            jdbcTemplate.execute("drop index idx_history_user_created");
+            jdbcTemplate.execute("create index idx_history_user_created on book_transaction_history (user_id, created_date)");
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.tech.BookStore.outbox;
+
+import com.tech.BookStore.auth.AuthenticationService;
+import com.tech.BookStore.auth.RegistrationRequest;
+import com.tech.BookStore.token.TokenRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "application.mailing.outbox.max-attempts=2",
+        "application.mailing.outbox.initial-backoff=PT1M",
+        "management.health.mail.enabled=false"
+})
+@ActiveProfiles("test")
+class OutboxDispatcherTest {
+
+    @MockitoBean
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+    @Autowired
+    private OutboxEmailRepo outboxEmailRepo;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @Autowired
+    private TokenRepo tokenRepo;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEmailRepo.deleteAll();
+    }
+
+    @Test
+    void registrationQueuesTheActivationEmailWhichTheDispatcherDelivers() throws Exception {
+        String email = UUID.randomUUID() + "@mail.com";
+        authenticationService.register(RegistrationRequest.builder()
+                .firstName("first")
+                .lastName("last")
+                .email(email)
+                .password("password")
+                .build());
+
+        List<OutboxEmail> queued = outboxEmailRepo.findAll();
+        assertThat(queued).hasSize(1);
+        assertThat(queued.get(0).getRecipient()).isEqualTo(email);
+        String code = tokenRepo.findAll().stream()
+                .filter(token -> token.getUser().getEmail().equals(email))
+                .findFirst().orElseThrow()
+                .getToken();
+        assertThat(queued.get(0).getBody()).contains(code);
+
+        outboxDispatcher.dispatchDue();
+
+        verify(mailSender, times(1)).send(any(MimeMessage[].class));
+        assertThat(outboxEmailRepo.count()).isZero();
+        assertThat(meterRegistry.get("email.outbox.backlog").gauge().value()).isZero();
+    }
+
+    @Test
+    void failedMessagesAreRetriedWithBackoffThenGivenUp() {
+        queue("ok@mail.com");
+        OutboxEmail bounced = queue("bounce@mail.com");
+        doAnswer(invocation -> {
+            for (Object argument : invocation.getArguments()) {
+                MimeMessage message = (MimeMessage) argument;
+                if (recipient(message).equals("bounce@mail.com")) {
+                    throw new MailSendException(Map.of(message, new MessagingException("550 mailbox unavailable")));
+                }
+            }
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        outboxDispatcher.dispatchDue();
+
+        List<OutboxEmail> remaining = outboxEmailRepo.findAll();
+        assertThat(remaining).extracting(OutboxEmail::getId).containsExactly(bounced.getId());
+        OutboxEmail retry = remaining.get(0);
+        assertThat(retry.getAttempts()).isEqualTo(1);
+        assertThat(retry.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(retry.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(30));
+        assertThat(retry.getLastError()).contains("550");
+
+        // not due yet, so a second run leaves it alone
+        outboxDispatcher.dispatchDue();
+        assertThat(outboxEmailRepo.findById(bounced.getId()).orElseThrow().getAttempts()).isEqualTo(1);
+
+        retry.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxEmailRepo.save(retry);
+        outboxDispatcher.dispatchDue();
+        assertThat(outboxEmailRepo.findById(bounced.getId()).orElseThrow().getStatus()).isEqualTo(OutboxStatus.FAILED);
+    }
+
+    @Test
+    void connectionFailureReschedulesTheWholeBatch() {
+        queue("a@mail.com");
+        queue("b@mail.com");
+        doThrow(new MailSendException("Mail server connection failed"))
+                .when(mailSender).send(any(MimeMessage[].class));
+
+        outboxDispatcher.dispatchDue();
+
+        assertThat(outboxEmailRepo.findAll())
+                .hasSize(2)
+                .allSatisfy(email -> assertThat(email.getAttempts()).isEqualTo(1));
+        assertThat(meterRegistry.get("email.outbox.backlog").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void sendsOutsideAnyTransactionWithTheBatchLeased() {
+        OutboxEmail email = queue("a@mail.com");
+        List<Boolean> transactionActive = new ArrayList<>();
+        List<LocalDateTime> leasedUntil = new ArrayList<>();
+        doAnswer(invocation -> {
+            transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            leasedUntil.add(outboxEmailRepo.findById(email.getId()).orElseThrow().getNextAttemptAt());
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        outboxDispatcher.dispatchDue();
+
+        assertThat(transactionActive).containsExactly(false);
+        assertThat(leasedUntil).singleElement().satisfies(lease ->
+                assertThat(lease).isAfter(LocalDateTime.now().plusMinutes(1)));
+        assertThat(outboxEmailRepo.count()).isZero();
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertThat(outboxDispatcher.backoff(1)).hasMinutes(1);
+        assertThat(outboxDispatcher.backoff(3)).hasMinutes(4);
+        assertThat(outboxDispatcher.backoff(30)).hasHours(1);
+    }
+
+    private OutboxEmail queue(String recipient) {
+        return outboxEmailRepo.save(OutboxEmail.builder()
+                .recipient(recipient)
+                .subject("subject")
+                .body("<p>body</p>")
+                .status(OutboxStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+    }
+
+    private static String recipient(MimeMessage message) throws MessagingException {
+        return message.getRecipients(Message.RecipientType.TO)[0].toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.tech.BookStore.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSearchIndexTest {
+
+    private static final Integer OWNER = 1;
+    private static final Integer READER = 2;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(new SimpleMeterRegistry());
+        index.index(book(1, "The Hobbit", "J.R.R. Tolkien", "978-0-261-10221-7",
+                "A hobbit leaves the shire on an unexpected journey", true, false, NOW));
+        index.index(book(2, "The Silmarillion", "J.R.R. Tolkien", "978-0-261-10273-6",
+                "Legends of the elder days, told long before any hobbit", true, false, NOW));
+        index.index(book(3, "Dune", "Frank Herbert", "978-0-441-17271-9",
+                "A desert planet and a boy who never read a hobbit story", true, false, NOW));
+        index.index(book(4, "Private Hobbit Notes", "Anonymous", null, "hobbit hobbit", false, false, NOW));
+    }
+
+    @Test
+    void titleMatchesOutrankSynopsisMatches() {
+        SearchHits hits = index.search("hobbit", readerFilter(), 0, 10);
+
+        assertThat(hits.total()).isEqualTo(3);
+        assertThat(hits.bookIds()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void combinesTermsAcrossFieldsAndIgnoresCaseAndAccents() {
+        assertThat(index.search("TÖLKIEN silmarillion", readerFilter(), 0, 10).bookIds())
+                .startsWith(2);
+        assertThat(index.search("herbert", readerFilter(), 0, 10).bookIds())
+                .containsExactly(3);
+    }
+
+    @Test
+    void findsIsbnWithOrWithoutDashes() {
+        assertThat(index.search("9780441172719", readerFilter(), 0, 10).bookIds()).containsExactly(3);
+        assertThat(index.search("978-0-441-17271-9", readerFilter(), 0, 10).bookIds()).first().isEqualTo(3);
+    }
+
+    @Test
+    void hidesOtherOwnersPrivateBooksButShowsOwnOnes() {
+        assertThat(index.search("notes", readerFilter(), 0, 10).total()).isZero();
+        assertThat(index.search("notes", new SearchFilter(OWNER, false, null, null), 0, 10).bookIds())
+                .containsExactly(4);
+    }
+
+    @Test
+    void pagesThroughRankedHits() {
+        assertThat(index.search("hobbit", readerFilter(), 0, 2).bookIds()).containsExactly(1, 2);
+        assertThat(index.search("hobbit", readerFilter(), 2, 2).bookIds()).containsExactly(3);
+    }
+
+    @Test
+    void reindexingReplacesTermsAndIgnoresStaleVersions() {
+        index.index(book(3, "Dune Messiah", "Frank Herbert", null, "sequel", true, false, NOW.plusMinutes(1)));
+        index.index(book(3, "Dune", "Frank Herbert", null, "stale copy read by the startup build", true, false, NOW));
+
+        assertThat(index.search("messiah", readerFilter(), 0, 10).bookIds()).containsExactly(3);
+        assertThat(index.search("stale", readerFilter(), 0, 10).total()).isZero();
+
+        index.remove(3);
+        assertThat(index.search("dune", readerFilter(), 0, 10).total()).isZero();
+    }
+
+    @Test
+    void archivingHidesTheBookFromOthers() {
+        index.index(book(1, "The Hobbit", "J.R.R. Tolkien", null, "", true, true, NOW.plusMinutes(1)));
+
+        assertThat(index.search("hobbit", readerFilter(), 0, 10).bookIds()).doesNotContain(1);
+        assertThat(index.search("hobbit", new SearchFilter(OWNER, null, true, OWNER), 0, 10).bookIds())
+                .containsExactly(1);
+    }
+
+    private static SearchFilter readerFilter() {
+        return new SearchFilter(READER, null, null, null);
+    }
+
+    private static BookDocument book(int id, String title, String author, String isbn, String synopsis,
+                                     boolean shareable, boolean archived, LocalDateTime modified) {
+        return new BookDocument(id, OWNER, title, author, isbn, synopsis, archived, shareable, 0, modified);
+    }
+}
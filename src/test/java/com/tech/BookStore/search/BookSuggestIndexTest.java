@@ -0,0 +1,95 @@
+package com.tech.BookStore.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSuggestIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private BookSearchRepo bookSearchRepo;
+    private SimpleMeterRegistry meterRegistry;
+    private BookSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookSearchRepo = mock(BookSearchRepo.class);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new BookSuggestIndex(bookSearchRepo, meterRegistry);
+        ReflectionTestUtils.setField(index, "topK", 3);
+        index.init();
+        index.index(book(1, "The Hobbit", "J.R.R. Tolkien", 50, true, false, NOW));
+        index.index(book(2, "The Lord of the Rings", "J.R.R. Tolkien", 80, true, false, NOW));
+        index.index(book(3, "The Hunger Games", "Suzanne Collins", 20, true, false, NOW));
+        index.index(book(4, "Hobbit Cookbook", "Anonymous", 5, true, false, NOW));
+        index.index(book(5, "Hidden Diary", "Someone", 500, false, false, NOW));
+    }
+
+    @Test
+    void ranksByPopularityAndMatchesAnyWordStart() {
+        assertThat(texts("h")).containsExactly("The Hobbit", "The Hunger Games", "Hobbit Cookbook");
+        assertThat(texts("hob")).containsExactly("The Hobbit", "Hobbit Cookbook");
+        assertThat(texts("the lo")).containsExactly("The Lord of the Rings");
+        assertThat(texts("xyz")).isEmpty();
+    }
+
+    @Test
+    void authorsAggregateTheirBooks() {
+        List<SuggestionResponse> suggestions = index.suggest("tolk", 10);
+
+        assertThat(suggestions).singleElement().satisfies(suggestion -> {
+            assertThat(suggestion.text()).isEqualTo("J.R.R. Tolkien");
+            assertThat(suggestion.type()).isEqualTo(SuggestionType.AUTHOR);
+            assertThat(suggestion.books()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void updatesAreAppliedIncrementally() {
+        index.index(book(4, "Hobbit Cookbook", "Anonymous", 1000, true, false, NOW.plusMinutes(1)));
+        assertThat(texts("hob")).containsExactly("Hobbit Cookbook", "The Hobbit");
+
+        index.index(book(1, "The Hobbit", "J.R.R. Tolkien", 50, true, true, NOW.plusMinutes(1)));
+        assertThat(texts("hob")).containsExactly("Hobbit Cookbook");
+        assertThat(index.suggest("tolkien", 10).get(0).books()).isEqualTo(1);
+
+        index.index(book(5, "Hidden Diary", "Someone", 500, true, false, NOW.plusMinutes(1)));
+        assertThat(texts("hi")).containsExactly("Hidden Diary");
+    }
+
+    @Test
+    void rebuildSwapsInFreshIndexAndReportsMemory() {
+        when(bookSearchRepo.findDocumentsAfter(eq(0), any(Limit.class)))
+                .thenReturn(List.of(book(9, "Harry Potter", "J.K. Rowling", 900, true, false, NOW)));
+
+        index.rebuild();
+
+        assertThat(texts("h")).containsExactly("Harry Potter");
+        assertThat(texts("hob")).isEmpty();
+        assertThat(meterRegistry.get("book.suggest.memory").gauge().value()).isPositive();
+    }
+
+    private List<String> texts(String prefix) {
+        return index.suggest(prefix, 10).stream()
+                .filter(suggestion -> suggestion.type() == SuggestionType.TITLE)
+                .map(SuggestionResponse::text)
+                .toList();
+    }
+
+    private static BookDocument book(int id, String title, String author, int ratings,
+                                     boolean shareable, boolean archived, LocalDateTime modified) {
+        return new BookDocument(id, 1, title, author, null, null, archived, shareable, ratings, modified);
+    }
+}
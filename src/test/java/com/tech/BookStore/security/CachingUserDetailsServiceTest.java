@@ -0,0 +1,42 @@
+package com.tech.BookStore.security;
+
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.tech.BookStore.user.TestUsers.newUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "application.security.user-cache.enabled=true")
+@ActiveProfiles("test")
+class CachingUserDetailsServiceTest {
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+
+    @Test
+    void cachedPrincipalIsReusedUntilTheUserChanges() {
+        User user = newUser(userRepo, roleRepo);
+
+        assertThat(userDetailsService).isInstanceOf(CachingUserDetailsService.class);
+        UserDetails first = userDetailsService.loadUserByUsername(user.getEmail());
+        assertThat(userDetailsService.loadUserByUsername(user.getEmail())).isSameAs(first);
+
+        user.setAccountLocked(true);
+        userRepo.save(user);
+
+        UserDetails reloaded = userDetailsService.loadUserByUsername(user.getEmail());
+        assertThat(reloaded).isNotSameAs(first);
+        assertThat(reloaded.isAccountNonLocked()).isFalse();
+    }
+}
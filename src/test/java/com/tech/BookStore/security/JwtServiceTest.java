@@ -0,0 +1,65 @@
+package com.tech.BookStore.security;
+
+import com.tech.BookStore.role.Role;
+import com.tech.BookStore.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(meterRegistry);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "secretKey", "dGVzdC1zZWNyZXQta2V5LXRoYXQtaXMtbG9uZy1lbm91Z2gtZm9yLWhzMjU2");
+        ReflectionTestUtils.setField(jwtService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtService, "cacheTtl", Duration.ofMinutes(5));
+        jwtService.init();
+    }
+
+    @Test
+    void principalIsRebuiltFromClaims() {
+        String token = jwtService.generateToken(user());
+
+        JwtPrincipal principal = jwtService.toPrincipal(jwtService.extractAllClaims(token));
+
+        assertThat(principal.getId()).isEqualTo(42);
+        assertThat(principal.getUsername()).isEqualTo("jane@mail.com");
+        assertThat(principal.fullName()).isEqualTo("Jane Doe");
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("USER");
+        assertThat(jwtService.isTokenValid(token, principal)).isTrue();
+    }
+
+    @Test
+    void repeatedTokensAreServedFromTheVerifiedCache() {
+        String token = jwtService.generateToken(user());
+
+        jwtService.extractAllClaims(token);
+        jwtService.extractAllClaims(token);
+        jwtService.extractAllClaims(token);
+
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+    }
+
+    private User user() {
+        return User.builder()
+                .id(42)
+                .firstName("Jane")
+                .lastName("Doe")
+                .email("jane@mail.com")
+                .roles(List.of(Role.builder().name("USER").build()))
+                .build();
+    }
+}
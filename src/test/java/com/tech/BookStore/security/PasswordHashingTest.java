@@ -0,0 +1,167 @@
+package com.tech.BookStore.security;
+
+import com.tech.BookStore.auth.AuthenticationService;
+import com.tech.BookStore.auth.RegistrationRequest;
+import com.tech.BookStore.exception.ServiceOverloadedException;
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.tech.BookStore.user.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = "application.security.password-hashing.strength=5")
+@ActiveProfiles("test")
+class PasswordHashingTest {
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+    @Autowired
+    private AuthenticationService authenticationService;
+    @MockitoSpyBean
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+
+    @Test
+    void signInRehashesPasswordsStoredAtAnotherCost() {
+        User user = userRepo.save(user(roleRepo)
+                .password(new BCryptPasswordEncoder(4).encode("password"))
+                .build());
+
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(user.getEmail(), "password"));
+
+        String rehashed = userRepo.findByEmail(user.getEmail()).orElseThrow().getPassword();
+        assertThat(rehashed).startsWith("$2a$05$");
+        assertThat(passwordEncoder.matches("password", rehashed)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(rehashed)).isFalse();
+    }
+
+    // a hash queued behind a burst must not keep a transaction, and with it a pooled connection, open
+    @Test
+    void signUpAndSignInHashOutsideAnyTransaction() {
+        List<Object> boundWhileHashing = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            boundWhileHashing.addAll(TransactionSynchronizationManager.getResourceMap().keySet());
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).encode(any());
+        doAnswer(invocation -> {
+            boundWhileHashing.addAll(TransactionSynchronizationManager.getResourceMap().keySet());
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).matches(any(), anyString());
+
+        String email = UUID.randomUUID() + "@mail.com";
+        authenticationService.register(RegistrationRequest.builder()
+                .firstName("first")
+                .lastName("last")
+                .email(email)
+                .password("password")
+                .build());
+        User user = userRepo.findByEmail(email).orElseThrow();
+        user.setEnabled(true);
+        userRepo.save(user);
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, "password"));
+
+        assertThat(boundWhileHashing).isEmpty();
+    }
+
+    @Test
+    void upgradeIsRequestedOnlyForBcryptHashesOfAnotherCost() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(5, executor(1, 1, Duration.ofSeconds(5)));
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("password"))).isFalse();
+        assertThat(encoder.upgradeEncoding("{noop}password")).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+
+    @Test
+    void fullQueueIsRejectedRightAway() throws Exception {
+        PasswordHashingExecutor executor = executor(1, 1, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.run(() -> {
+                started.countDown();
+                return await(release);
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.run(() -> true));
+            while (executor.executor.getQueue().isEmpty()) {
+                Thread.onSpinWait();
+            }
+
+            assertThatThrownBy(() -> executor.run(() -> true))
+                    .isInstanceOf(ServiceOverloadedException.class)
+                    .satisfies(e -> assertThat(((ServiceOverloadedException) e).getRetryAfter()).hasSeconds(2));
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void hashWaitingLongerThanMaxWaitIsAbandoned() {
+        PasswordHashingExecutor executor = executor(1, 10, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertThatThrownBy(() -> executor.run(() -> await(release)))
+                    .isInstanceOf(ServiceOverloadedException.class);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static PasswordHashingExecutor executor(int threads, int queueCapacity, Duration maxWait) {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(registry);
+        ReflectionTestUtils.setField(executor, "threads", threads);
+        ReflectionTestUtils.setField(executor, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(executor, "maxWait", maxWait);
+        ReflectionTestUtils.setField(executor, "retryAfter", Duration.ofSeconds(2));
+        executor.init();
+        return executor;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.tech.BookStore.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.oneOf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "application.security.rate-limit.enabled=true",
+        "application.security.rate-limit.policies[0].name=login",
+        "application.security.rate-limit.policies[0].path=/auth/authentication",
+        "application.security.rate-limit.policies[0].methods=POST",
+        "application.security.rate-limit.policies[0].capacity=2",
+        "application.security.rate-limit.policies[0].refill-tokens=1",
+        "application.security.rate-limit.policies[0].refill-period=PT1M"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final int ROUNDS = 8;
+    private static final int REQUESTS = 500_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void bucketRefillsOneTokenPerInterval() {
+        long now = 1_000 * SECOND;
+        TokenBucket bucket = new TokenBucket(3, SECOND, now);
+
+        assertThat(bucket.tryConsume(now).remaining()).isEqualTo(2);
+        assertThat(bucket.tryConsume(now).remaining()).isEqualTo(1);
+        TokenBucket.Probe last = bucket.tryConsume(now);
+        assertThat(last.allowed()).isTrue();
+        assertThat(last.remaining()).isZero();
+        assertThat(last.resetNanos()).isEqualTo(3 * SECOND);
+
+        TokenBucket.Probe refused = bucket.tryConsume(now + SECOND / 2);
+        assertThat(refused.allowed()).isFalse();
+        assertThat(refused.retryAfterNanos()).isEqualTo(SECOND / 2);
+
+        assertThat(bucket.tryConsume(now + SECOND).allowed()).isTrue();
+        assertThat(bucket.tryConsume(now + SECOND).allowed()).isFalse();
+        // idle long enough to be full again, but never beyond capacity
+        assertThat(bucket.tryConsume(now + 60 * SECOND).remaining()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanTheCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(1_000, TimeUnit.HOURS.toNanos(1), System.nanoTime());
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    int granted = 0;
+                    for (int i = 0; i < 1_000; i++) {
+                        if (bucket.tryConsume(System.nanoTime()).allowed()) {
+                            granted++;
+                        }
+                    }
+                    return granted;
+                }));
+            }
+            int granted = 0;
+            for (Future<Integer> result : results) {
+                granted += result.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(granted).isEqualTo(1_000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void loginIsRefusedWithHeadersOnceTheBudgetIsSpent() throws Exception {
+        mockMvc.perform(login("10.0.0.1"))
+                .andExpect(header().string(RateLimitFilter.LIMIT, "2"))
+                .andExpect(header().string(RateLimitFilter.REMAINING, "1"))
+                .andExpect(header().string(RateLimitFilter.POLICY, "2;w=120"));
+        mockMvc.perform(login("10.0.0.1"))
+                .andExpect(header().string(RateLimitFilter.REMAINING, "0"));
+
+        mockMvc.perform(login("10.0.0.1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, oneOf("59", "60")))
+                .andExpect(header().string(RateLimitFilter.RESET, oneOf("119", "120")))
+                .andExpect(jsonPath("$.businessErrorCode").value(305));
+
+        // other clients and other routes keep their own budget
+        mockMvc.perform(login("10.0.0.2"))
+                .andExpect(header().string(RateLimitFilter.REMAINING, "1"));
+        mockMvc.perform(get("/auth/activate-account").param("token", "000000").with(from("10.0.0.1")))
+                .andExpect(header().doesNotExist(RateLimitFilter.LIMIT));
+    }
+
+    @Test
+    void percentEncodedPathsShareTheBudgetOfTheDecodedRoute() throws Exception {
+        mockMvc.perform(login("10.0.0.3"))
+                .andExpect(header().string(RateLimitFilter.REMAINING, "1"));
+        mockMvc.perform(login(URI.create("/%61uth/authentication"), "10.0.0.3"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(RateLimitFilter.REMAINING, "0"));
+        mockMvc.perform(login(URI.create("/auth/%61uthentication"), "10.0.0.3"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    // run with -Pbenchmark; the numbers are published as report entries, not asserted
+    @Test
+    @Tag("benchmark")
+    void benchmarkLimiterOverheadPerRequest(TestReporter reporter) {
+        RateLimiter rateLimiter = new RateLimiter(new RateLimitProperties(true, 100_000, List.of(
+                new RateLimitProperties.Policy("login", "/auth/authentication", Set.of("POST"),
+                        RateLimitProperties.Key.IP, 10, 10, Duration.ofMinutes(1)),
+                new RateLimitProperties.Policy("writes", "/{resource:books|feedbacks}/**", Set.of("POST", "PUT", "PATCH", "DELETE"),
+                        RateLimitProperties.Key.USER, 1_000_000, 1_000_000, Duration.ofSeconds(1))
+        )), new SimpleMeterRegistry());
+        RateLimiter.Route route = rateLimiter.match("PUT", "/books/shareable/1");
+        assertThat(route.policy().name()).isEqualTo("writes");
+        Integer[] users = new Integer[1_000];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = i;
+        }
+
+        Map<Object, AtomicLong> plainMap = new ConcurrentHashMap<>();
+        long perRequest = Long.MAX_VALUE;
+        long perMatch = Long.MAX_VALUE;
+        long perMapHit = Long.MAX_VALUE;
+        long granted = 0;
+        // best of several rounds, the first ones include JIT compilation
+        for (int round = 0; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                granted += route.acquire(users[i % users.length], System.nanoTime()).remaining();
+            }
+            perRequest = Math.min(perRequest, (System.nanoTime() - started) / REQUESTS);
+
+            started = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                granted += rateLimiter.match("PUT", "/books/shareable/1") == null ? 0 : 1;
+            }
+            perMatch = Math.min(perMatch, (System.nanoTime() - started) / REQUESTS);
+
+            // the floor: an unbounded map and a counter, no expiry or refill
+            started = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                granted += plainMap.computeIfAbsent(users[i % users.length], key -> new AtomicLong())
+                        .addAndGet(System.nanoTime() & 1);
+            }
+            perMapHit = Math.min(perMapHit, (System.nanoTime() - started) / REQUESTS);
+        }
+
+        assertThat(granted).isPositive();
+        reporter.publishEntry(Map.of(
+                "bucket ns/request", String.valueOf(perRequest),
+                "route matching ns/request", String.valueOf(perMatch),
+                "plain map ns/request", String.valueOf(perMapHit)));
+    }
+
+    private static MockHttpServletRequestBuilder login(String address) {
+        return login(URI.create("/auth/authentication"), address);
+    }
+
+    private static MockHttpServletRequestBuilder login(URI uri, String address) {
+        return post(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"nobody@mail.com\",\"password\":\"password\"}")
+                .with(from(address));
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
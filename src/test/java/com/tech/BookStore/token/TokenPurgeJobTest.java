@@ -0,0 +1,100 @@
+package com.tech.BookStore.token;
+
+import com.tech.BookStore.role.RoleRepo;
+import com.tech.BookStore.user.User;
+import com.tech.BookStore.user.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.tech.BookStore.user.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "application.security.tokens.purge.batch-size=3")
+@ActiveProfiles("test")
+class TokenPurgeJobTest {
+
+    private static final AtomicInteger CODES = new AtomicInteger();
+
+    @Autowired
+    private TokenPurgeJob tokenPurgeJob;
+    @Autowired
+    private TokenRepo tokenRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private RoleRepo roleRepo;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepo.save(user(roleRepo)
+                .enabled(false)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenRepo.deleteAll();
+    }
+
+    @Test
+    void purgesValidatedAndLongExpiredTokensInIdBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 4; i++) {
+            token(now.plusMinutes(15), null);
+        }
+        for (int i = 0; i < 3; i++) {
+            token(now.plusMinutes(15), now);
+        }
+        for (int i = 0; i < 3; i++) {
+            token(now.minusDays(2), null);
+        }
+        Token recentlyExpired = token(now.minusHours(1), null);
+
+        TokenPurgeJob.PurgeResult result = tokenPurgeJob.purge();
+
+        assertThat(result.rows()).isEqualTo(6);
+        assertThat(result.batches()).isGreaterThanOrEqualTo(4);
+        assertThat(tokenRepo.count()).isEqualTo(5);
+        assertThat(tokenRepo.findByToken(recentlyExpired.getToken())).isPresent();
+        assertThat(tokenRepo.findAll()).allSatisfy(token -> assertThat(token.getValidateAt()).isNull());
+    }
+
+    @Test
+    void emptyTableIsANoOp() {
+        assertThat(tokenPurgeJob.purge().rows()).isZero();
+    }
+
+    @Test
+    void tokenValuesAreUnique() {
+        Token existing = token(LocalDateTime.now().plusMinutes(15), null);
+
+        assertThatThrownBy(() -> tokenRepo.saveAndFlush(Token.builder()
+                .token(existing.getToken())
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(15))
+                .user(user)
+                .build()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private Token token(LocalDateTime expiresAt, LocalDateTime validatedAt) {
+        return tokenRepo.save(Token.builder()
+                .token(String.format("%06d", CODES.incrementAndGet()))
+                .createdAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .validateAt(validatedAt)
+                .user(user)
+                .build());
+    }
+}
@@ -0,0 +1,28 @@
+package com.tech.BookStore.user;
+
+import com.tech.BookStore.role.RoleRepo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// enabled users with the USER role and a unique email, shared by the integration tests
+public final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    public static User.UserBuilder user(RoleRepo roleRepo) {
+        return User.builder()
+                .firstName("first")
+                .lastName("last")
+                .email(UUID.randomUUID() + "@mail.com")
+                .password("password")
+                .enabled(true)
+                .roles(new ArrayList<>(List.of(roleRepo.findByName("USER").orElseThrow())));
+    }
+
+    public static User newUser(UserRepo userRepo, RoleRepo roleRepo) {
+        return userRepo.save(user(roleRepo).build());
+    }
+}
@@ -0,0 +1,30 @@
+-- What the entities of the original app generated with ddl-auto=create on MySQL (the dev
+-- profile recreated it on every start). No schema_history, none of the V1 columns or indexes.
+create table _user (account_locked bit not null, date_of_birth date, enabled bit not null, id integer not null, created_date datetime(6) not null, last_modified_date datetime(6) not null, email varchar(255), first_name varchar(255), last_name varchar(255), password varchar(255), primary key (id)) engine=InnoDB;
+create table _user_roles (roles_id integer not null, users_id integer not null) engine=InnoDB;
+create table _user_seq (next_val bigint) engine=InnoDB;
+insert into _user_seq values ( 1 );
+create table book (archived bit not null, id integer not null, owner_id integer, shareable bit not null, created_by datetime(6) not null, created_date datetime(6) not null, last_modified_by datetime(6) not null, last_modified_date datetime(6) not null, author_name varchar(255), book_cover varchar(255), isbn varchar(255), synopsis varchar(255), title varchar(255), primary key (id)) engine=InnoDB;
+create table book_seq (next_val bigint) engine=InnoDB;
+insert into book_seq values ( 1 );
+create table book_transaction_history_seq (next_val bigint) engine=InnoDB;
+insert into book_transaction_history_seq values ( 1 );
+create table book_transaction_history (book_id integer, id integer not null, return_approved bit not null, returned bit not null, user_id integer, created_by datetime(6) not null, created_date datetime(6) not null, last_modified_by datetime(6) not null, last_modified_date datetime(6) not null, primary key (id)) engine=InnoDB;
+create table feedback (book_id integer, id integer not null, note float(53) not null, created_by datetime(6) not null, created_date datetime(6) not null, last_modified_by datetime(6) not null, last_modified_date datetime(6) not null, comment varchar(255), primary key (id)) engine=InnoDB;
+create table feedback_seq (next_val bigint) engine=InnoDB;
+insert into feedback_seq values ( 1 );
+create table role (id integer not null, created_date datetime(6) not null, last_modified_date datetime(6) not null, name varchar(255), primary key (id)) engine=InnoDB;
+create table role_seq (next_val bigint) engine=InnoDB;
+insert into role_seq values ( 1 );
+create table token (id integer not null, user_id integer not null, created_at datetime(6), expires_at datetime(6), validate_at datetime(6), token varchar(255), primary key (id)) engine=InnoDB;
+create table token_seq (next_val bigint) engine=InnoDB;
+insert into token_seq values ( 1 );
+alter table _user add constraint UKk11y3pdtsrjgy8w9b6q4bjwrx unique (email);
+alter table role add constraint UK8sewwnpamngi6b1dwaa88askk unique (name);
+alter table _user_roles add constraint FKtq7v0vo9kka3qeaw2alou2j8p foreign key (roles_id) references role (id);
+alter table _user_roles add constraint FKkna43mk14wb08rt62w1982ki6 foreign key (users_id) references _user (id);
+alter table book add constraint FK61m8am98w4y4vgpl82sojy8bh foreign key (owner_id) references _user (id);
+alter table book_transaction_history add constraint FKetks95hi6ay47e16sj6vdv9g9 foreign key (book_id) references book (id);
+alter table book_transaction_history add constraint FKh081geal7xoydl9vyh7cbf4wc foreign key (user_id) references _user (id);
+alter table feedback add constraint FKgclyi456gw0lcd6xcfj2l7r6s foreign key (book_id) references book (id);
+alter table token add constraint FKiblu4cjwvyntq3ugo31klp1c6 foreign key (user_id) references _user (id);